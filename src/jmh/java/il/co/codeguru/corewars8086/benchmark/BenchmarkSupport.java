@@ -0,0 +1,138 @@
+package il.co.codeguru.corewars8086.benchmark;
+
+import com.google.devtools.common.options.OptionsParser;
+import il.co.codeguru.corewars8086.cli.Options;
+import il.co.codeguru.corewars8086.memory.RealModeAddress;
+import il.co.codeguru.corewars8086.memory.RealModeMemoryImpl;
+import il.co.codeguru.corewars8086.war.CompetitionEventListener;
+import il.co.codeguru.corewars8086.war.War;
+import il.co.codeguru.corewars8086.war.Warrior;
+import il.co.codeguru.corewars8086.war.WarriorGroup;
+import il.co.codeguru.corewars8086.war.WarriorRepository;
+import il.co.codeguru.corewars8086.war.WarriorType;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Helpers shared by the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    /** Offset in the arena at which benchmark code is loaded */
+    static final short LOAD_OFFSET = 0x4000;
+    /** Arena offsets used as source & destination of memory operations */
+    static final short SOURCE_OFFSET = (short)0x8000;
+    static final short DESTINATION_OFFSET = (short)0x9000;
+
+    /** Same layout as War's allocations: group memory, then the stack */
+    private static final short GROUP_SHARED_MEMORY_SEGMENT = 0x2000;
+    private static final short GROUP_SHARED_MEMORY_SIZE = 1024;
+    private static final short STACK_SEGMENT = 0x2040;
+    private static final short STACK_SIZE = 2*1024;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @param args  Command-line style arguments, e.g. "--zombieSpeed=2".
+     * @return the engine's options, with the warriors taken from the bundle.
+     */
+    static Options createOptions(String... args) {
+        String[] allArgs = new String[args.length + 2];
+        allArgs[0] = "--warriorsDir=" +
+            System.getProperty("corewars.warriorsDir", "bundle/survivors");
+        allArgs[1] = "--zombiesDir=" +
+            System.getProperty("corewars.zombiesDir", "bundle/zombies");
+        System.arraycopy(args, 0, allArgs, 2, args.length);
+
+        OptionsParser optionsParser = OptionsParser.newOptionsParser(Options.class);
+        optionsParser.parseAndExitUponError(allArgs);
+        return optionsParser.getOptions(Options.class);
+    }
+
+    /**
+     * @param options  Options specifying the warriors' directory.
+     * @return all the warrior groups in the warriors' directory.
+     */
+    static WarriorGroup[] loadWarriorGroups(Options options) throws IOException {
+        WarriorRepository repository = new WarriorRepository(false, options);
+        repository.readWarriorsFileFromPath(options.warriorsDir);
+        List<WarriorGroup> groups = repository.getWarriorGroups();
+        return groups.toArray(new WarriorGroup[0]);
+    }
+
+    /**
+     * Parses the given hex string, and appends a short jump back to its
+     * beginning, so that the code runs in an endless loop.
+     *
+     * @param hex  Machine code, e.g. "01D8 0304" (spaces are ignored).
+     * @return the looping machine code.
+     */
+    static byte[] loop(String hex) {
+        byte[] code = parse(hex);
+        byte[] looped = new byte[code.length + 2];
+        System.arraycopy(code, 0, looped, 0, code.length);
+        looped[code.length] = (byte)0xEB; // JMP short
+        looped[code.length + 1] = (byte)-looped.length;
+        return looped;
+    }
+
+    /**
+     * @param hex  Machine code, e.g. "01D8 0304" (spaces are ignored).
+     * @return the machine code's bytes.
+     */
+    static byte[] parse(String hex) {
+        hex = hex.replace(" ", "");
+        byte[] code = new byte[hex.length() / 2];
+        for (int i = 0; i < code.length; ++i) {
+            code[i] = (byte)Integer.parseInt(hex.substring(2*i, 2*i + 2), 16);
+        }
+        return code;
+    }
+
+    /**
+     * Creates a warrior running the given code, in an arena initialized the
+     * same way War does. CS = DS = ES = the arena.
+     *
+     * @param code  The warrior's code, loaded at LOAD_OFFSET.
+     * @return the warrior.
+     */
+    static Warrior createWarrior(byte[] code) {
+        RealModeMemoryImpl core = new RealModeMemoryImpl();
+        for (int offset = 0; offset < War.ARENA_SIZE; ++offset) {
+            core.writeByte(War.ARENA_SEGMENT, (short)offset, (byte)0xCC);
+        }
+        for (int offset = 0; offset < code.length; ++offset) {
+            core.writeByte(War.ARENA_SEGMENT, (short)(LOAD_OFFSET + offset),
+                code[offset]);
+        }
+
+        Warrior warrior = new Warrior(
+            "benchmark",
+            code.length,
+            core,
+            new RealModeAddress(War.ARENA_SEGMENT, LOAD_OFFSET),
+            new RealModeAddress(STACK_SEGMENT, STACK_SIZE),
+            new RealModeAddress(GROUP_SHARED_MEMORY_SEGMENT, (short)0),
+            GROUP_SHARED_MEMORY_SIZE,
+            WarriorType.SURVIVOR);
+        warrior.getCpuState().setES(War.ARENA_SEGMENT);
+        return warrior;
+    }
+
+    /**
+     * A CompetitionEventListener which ignores all events.
+     */
+    static class NullCompetitionEventListener implements CompetitionEventListener {
+        public void onWarStart(long seed) {}
+        public void onWarEnd(int reason, String winners) {}
+        public void onRound(int round) {}
+        public void onWarriorBirth(String warriorName) {}
+        public void onWarriorDeath(String warriorName, String reason) {}
+        public void onCompetitionStart() {}
+        public void onCompetitionEnd() {}
+        public void onEndRound() {}
+        public boolean wantsRoundEvents() { return false; }
+    }
+}
@@ -0,0 +1,65 @@
+package il.co.codeguru.corewars8086.benchmark;
+
+import il.co.codeguru.corewars8086.cpu.CpuState;
+import il.co.codeguru.corewars8086.war.War;
+import il.co.codeguru.corewars8086.war.Warrior;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the virtual INT 0x86 (256 bytes bomb) and INT 0x87 (search &
+ * replace) opcodes, in instructions per second. The bomb counters are
+ * refilled before every INT.
+ *
+ * INT 0x86 bombs ES:0x9000 in the arena. INT 0x87 searches the arena for
+ * bytes which are not there, which is its worst case (64K comparisons).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BombBenchmark {
+
+    @Param({"86", "87"})
+    public String interrupt;
+
+    private Warrior warrior;
+    private CpuState state;
+
+    @Setup
+    public void setup() {
+        warrior = BenchmarkSupport.createWarrior(
+            BenchmarkSupport.parse("CD" + interrupt));
+        state = warrior.getCpuState();
+        // search for 0x1234 0x1234, replace with 0x5678 0x5678
+        state.setAX((short)0x1234);
+        state.setDX((short)0x1234);
+        state.setBX((short)0x5678);
+        state.setCX((short)0x5678);
+    }
+
+    @Benchmark
+    public short nextOpcode() throws Exception {
+        state.setCS(War.ARENA_SEGMENT);
+        state.setIP(BenchmarkSupport.LOAD_OFFSET);
+        state.setDI(BenchmarkSupport.DESTINATION_OFFSET);
+        state.setBomb1Count((byte)2);
+        state.setBomb2Count((byte)1);
+        warrior.nextOpcode();
+        return state.getDI();
+    }
+}
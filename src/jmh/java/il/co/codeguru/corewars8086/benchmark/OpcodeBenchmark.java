@@ -0,0 +1,98 @@
+package il.co.codeguru.corewars8086.benchmark;
+
+import il.co.codeguru.corewars8086.war.Warrior;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures single-opcode dispatch, in instructions per second, for each of
+ * the Cpu's opcode families (0x60..0x6F are all invalid, and are skipped).
+ *
+ * Every family runs a short loop of typical opcodes from that family, closed
+ * by a short jump (so about one in 5-10 instructions is a JMP).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OpcodeBenchmark {
+
+    /** Number of instructions executed per benchmark invocation */
+    private static final int INSTRUCTIONS = 1000;
+
+    /** Code (without the closing jump) for each opcode family */
+    private static final Map<String, String> FAMILIES = new HashMap<>();
+    static {
+        // ADD AX,BX / ADD [SI],AL / ADD AX,[SI] / ADD AX,1 / OR AX,CX /
+        // OR AL,1 / PUSH ES / POP ES
+        FAMILIES.put("0X", "01D8 0004 0304 050100 09C8 0C01 06 07");
+        // ADC AX,BX / ADC AX,[SI] / SBB AX,BX / SBB AX,1 / PUSH DS / POP DS
+        FAMILIES.put("1X", "11D8 1304 19D8 1D0100 1E 1F");
+        // AND AX,BX / AND AX,[SI] / AND AX,0xFFFF / SUB AX,BX / SUB AX,1
+        FAMILIES.put("2X", "21D8 2304 25FFFF 29D8 2D0100");
+        // XOR AX,BX / XOR AX,[SI] / CMP AX,BX / CMP AX,[SI] / CMP AX,1
+        FAMILIES.put("3X", "31D8 3304 39D8 3B04 3D0100");
+        // INC AX / INC BX / DEC AX / DEC BX / INC CX / DEC CX
+        FAMILIES.put("4X", "40 43 48 4B 41 49");
+        // PUSH AX / PUSH BX / POP BX / POP AX
+        FAMILIES.put("5X", "50 53 5B 58");
+        // JZ / JNZ / JC / JNC (all to the next instruction)
+        FAMILIES.put("7X", "7400 7500 7200 7300");
+        // MOV [SI],AX / MOV AX,[SI] / ADD AX,1 / ADD word [SI],1 /
+        // XCHG AX,BX / XCHG AX,BX / LEA AX,[SI] / TEST AX,AX
+        FAMILIES.put("8X", "8904 8B04 83C001 81040100 87D8 87D8 8D04 85C0");
+        // NOP / XCHG AX,CX / XCHG AX,CX / CWD / CBW / PUSHF / POPF
+        FAMILIES.put("9X", "90 91 91 99 98 9C 9D");
+        // MOV AX,[0] / MOV [0],AX / TEST AL,1 / TEST AX,1
+        FAMILIES.put("AX", "A10000 A30000 A801 A90100");
+        // MOV AX,0x1234 / MOV BL,1 / MOV SI,0 / MOV CL,5
+        FAMILIES.put("BX", "B83412 B301 BE0000 B105");
+        // MOV word [SI],0x1234 / MOV byte [SI],1 / MOV AX,1
+        FAMILIES.put("CX", "C7043412 C60401 C7C00100");
+        // SHL AX,1 / SHR AX,1 / ROL AL,1 / RCL AX,1 / XLAT
+        FAMILIES.put("DX", "D1E0 D1E8 D0C0 D1D0 D7");
+        // CALL next / POP AX / JCXZ next / LOOP next / JMP next
+        FAMILIES.put("EX", "E80000 58 E300 E200 EB00");
+        // CLC / STC / CMC / CLD / NOT AX / NEG AX / INC AL / INC word [SI] /
+        // TEST AL,1
+        FAMILIES.put("FX", "F8 F9 F5 FC F7D0 F7D8 FEC0 FF04 F6C001");
+    }
+
+    @Param({"0X", "1X", "2X", "3X", "4X", "5X", "7X", "8X",
+        "9X", "AX", "BX", "CX", "DX", "EX", "FX"})
+    public String family;
+
+    private Warrior warrior;
+
+    @Setup
+    public void setup() {
+        warrior = BenchmarkSupport.createWarrior(
+            BenchmarkSupport.loop(FAMILIES.get(family)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTRUCTIONS)
+    public short nextOpcode() throws Exception {
+        for (int i = 0; i < INSTRUCTIONS; ++i) {
+            warrior.nextOpcode();
+        }
+        return warrior.getCpuState().getAX();
+    }
+}
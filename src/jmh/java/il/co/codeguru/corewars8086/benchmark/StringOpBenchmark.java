@@ -0,0 +1,87 @@
+package il.co.codeguru.corewars8086.benchmark;
+
+import il.co.codeguru.corewars8086.war.Warrior;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures string opcodes, with and without REP prefixes, in instructions
+ * per second. Every iteration of a REP opcode counts as one instruction,
+ * just like in a war.
+ *
+ * Every loop starts with MOV SI,0x8000 / MOV DI,0x9000 / MOV CX,0x40, and
+ * ES = DS = the arena.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringOpBenchmark {
+
+    /** Number of instructions executed per benchmark invocation */
+    private static final int INSTRUCTIONS = 1000;
+
+    private static final String PROLOGUE = "BE0080 BF0090 B94000";
+
+    /** Code (without the prologue & closing jump) for each opcode */
+    private static final Map<String, String> OPCODES = new HashMap<>();
+    static {
+        OPCODES.put("MOVSB", repeat("A4", 16));
+        OPCODES.put("MOVSW", repeat("A5", 16));
+        OPCODES.put("STOSB", repeat("AA", 16));
+        OPCODES.put("STOSW", repeat("AB", 16));
+        OPCODES.put("LODSW", repeat("AD", 16));
+        OPCODES.put("CMPSW", repeat("A7", 16));
+        OPCODES.put("SCASW", repeat("AF", 16));
+        OPCODES.put("REP_MOVSW", "F3A5");
+        OPCODES.put("REP_STOSW", "F3AB");
+        OPCODES.put("REPZ_CMPSW", "F3A7");
+        OPCODES.put("REPNZ_SCASW", "F2AF");
+    }
+
+    private static String repeat(String hex, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; ++i) {
+            builder.append(hex);
+        }
+        return builder.toString();
+    }
+
+    @Param({"MOVSB", "MOVSW", "STOSB", "STOSW", "LODSW", "CMPSW", "SCASW",
+        "REP_MOVSW", "REP_STOSW", "REPZ_CMPSW", "REPNZ_SCASW"})
+    public String opcode;
+
+    private Warrior warrior;
+
+    @Setup
+    public void setup() {
+        warrior = BenchmarkSupport.createWarrior(
+            BenchmarkSupport.loop(PROLOGUE + OPCODES.get(opcode)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTRUCTIONS)
+    public short nextOpcode() throws Exception {
+        for (int i = 0; i < INSTRUCTIONS; ++i) {
+            warrior.nextOpcode();
+        }
+        return warrior.getCpuState().getAX();
+    }
+}
@@ -0,0 +1,87 @@
+package il.co.codeguru.corewars8086.benchmark;
+
+import il.co.codeguru.corewars8086.cli.Options;
+import il.co.codeguru.corewars8086.war.Competition;
+import il.co.codeguru.corewars8086.war.CompetitionEventListener;
+import il.co.codeguru.corewars8086.war.War;
+import il.co.codeguru.corewars8086.war.WarriorGroup;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures War construction and complete wars between all the warriors in
+ * the warriors' directory (bundle/survivors by default, override with
+ * -Dcorewars.warriorsDir), in wars per second.
+ *
+ * Every invocation uses the next seed (starting from 0 in every fork), so
+ * runs are reproducible. Complete wars also report rounds per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WarBenchmark {
+
+    private Options options;
+    private WarriorGroup[] warriorGroups;
+    private CompetitionEventListener listener;
+    private long seed;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rounds {
+        public long rounds;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rounds = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        options = BenchmarkSupport.createOptions();
+        warriorGroups = BenchmarkSupport.loadWarriorGroups(options);
+        listener = new BenchmarkSupport.NullCompetitionEventListener();
+        seed = 0;
+    }
+
+    private War createWar() throws Exception {
+        War war = new War(null, listener, false, options);
+        war.setSeed(seed++);
+        war.loadWarriorGroups(warriorGroups);
+        return war;
+    }
+
+    @Benchmark
+    public War construct() throws Exception {
+        return createWar();
+    }
+
+    @Benchmark
+    public int fullWar(Rounds rounds) throws Exception {
+        War war = createWar();
+        int round = 0;
+        while ((round < Competition.MAX_ROUND) && !war.isOver()) {
+            war.nextRound(round);
+            ++round;
+        }
+        rounds.rounds += round;
+        return war.getNumRemainingWarriors();
+    }
+}
@@ -20,6 +20,8 @@ public class HeadlessCompetitionRunner implements ScoreEventListener, Competitio
   
   private int warCounter;
   private int totalWars;
+  /** Number of wars after which the ranking was settled, or 0 if it wasn't */
+  private int settledWars;
   
   private final Competition competition;
   private long seed;
@@ -33,6 +35,7 @@ public class HeadlessCompetitionRunner implements ScoreEventListener, Competitio
     System.out.println("CoreWars8086 - headless mode\n");
     
     this.competition = new Competition(options);
+    this.competition.setHeadless(true);
     this.competition.addCompetitionEventListener(this);
     WarriorRepository repository = competition.getWarriorRepository();
     System.out.printf("Loaded warriors: %s%n", Arrays.toString(repository.getGroupNames()));
@@ -106,6 +109,7 @@ public class HeadlessCompetitionRunner implements ScoreEventListener, Competitio
   @Override
   public void onCompetitionStart() {
     warCounter = 0;
+    settledWars = 0;
     totalWars = competition.getTotalNumberOfWars();
     competition.setAbort(false);
     System.out.printf("Starting competition (%d wars)%s.%n", totalWars, options.parallel ? " in parallel" : "");
@@ -121,14 +125,28 @@ public class HeadlessCompetitionRunner implements ScoreEventListener, Competitio
   public void onCompetitionEnd() {
     progressBar.close();
     System.out.printf("Competition is over. Ran %d wars%n", warCounter);
+    if (settledWars > 0) {
+      System.out.printf("Ranking settled after %d of %d wars%n", settledWars, totalWars);
+    }
     warThread = null;
   }
   
+  @Override
+  public void onRankingSettled(int numWars, int totalWars) {
+    // printed once the progress bar is closed
+    settledWars = numWars;
+  }
+  
   @Override
   public void onEndRound() {
   
   }
   
+  @Override
+  public boolean wantsRoundEvents() {
+    return false;
+  }
+  
   @Override
   public void scoreChanged(String name, float addedValue, int groupIndex, int subIndex) {
   }
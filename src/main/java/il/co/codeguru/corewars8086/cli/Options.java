@@ -54,6 +54,30 @@ public class Options extends OptionsBase {
       defaultValue = "2"
   )
   public int zombieSpeed;
+
+  @Option(
+      name = "fastRandom",
+      help = "Use a faster random generator in battles (which does not reproduce the battles of previous versions with the same seed)",
+      category = "Gameplay",
+      defaultValue = "false"
+  )
+  public boolean fastRandom;
+  
+  @Option(
+      name = "earlyStopConfidence",
+      help = "Stop the competition once the ranking is settled with this confidence (e.g. 0.99), or 0 to always run all battles",
+      category = "Gameplay",
+      defaultValue = "0"
+  )
+  public double earlyStopConfidence;
+
+  @Option(
+      name = "earlyStopTop",
+      help = "Only wait for the ranking of the top N groups to settle, or 0 for the whole ranking",
+      category = "Gameplay",
+      defaultValue = "0"
+  )
+  public int earlyStopTop;
   
   @Option(
       name = "parallel",
@@ -72,6 +96,30 @@ public class Options extends OptionsBase {
       defaultValue = "4"
   )
   public int threads;
+
+  @Option(
+      name = "directCore",
+      help = "Keep the wars' memory off the Java heap, so it can be watched without copying it",
+      category = "Performance",
+      defaultValue = "false"
+  )
+  public boolean directCore;
+
+  @Option(
+      name = "detectStalemates",
+      help = "End battles as soon as their state repeats itself (with the same results as running them to the end)",
+      category = "Performance",
+      defaultValue = "false"
+  )
+  public boolean detectStalemates;
+
+  @Option(
+      name = "coreFile",
+      help = "Map the wars' memory to this file, so external tools can watch it (each thread's wars use their own slot of the file)",
+      category = "Data",
+      defaultValue = ""
+  )
+  public String coreFile;
   
   @Option(
       name = "warriorsDir",
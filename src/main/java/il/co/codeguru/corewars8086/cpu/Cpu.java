@@ -30,64 +30,29 @@ public class Cpu {
     /**
      * Performs the next single opcode.
      * 
+     * All 256 opcodes are dispatched by a single (table) switch, while the
+     * opcode groups which are further decoded by the Reg index bits of their
+     * mode byte are implemented by separate methods.
+     * 
      * @throws CpuException    on any CPU error. 
      * @throws MemoryException on any Memory error. 
      */
     public void nextOpcode() throws CpuException, MemoryException {
         byte opcode = m_fetcher.nextByte();
-        switch(opcode & 0xF0) {
-            case 0x00:
-                opcode0X(opcode);
-                break;
-            case 0x10:
-                opcode1X(opcode);
-                break;
-            case 0x20:
-                opcode2X(opcode);
-                break;
-            case 0x30:
-                opcode3X(opcode);
-                break;
-            case 0x40:
-                opcode4X(opcode);
-                break;
-            case 0x50:
-                opcode5X(opcode);
-                break;
-            case 0x60:
-                opcode6X(opcode);
-                break;
-            case 0x70:
-                opcode7X(opcode);
-                break;
-            case 0x80:
-                opcode8X(opcode);
-                break;
-            case 0x90:
-                opcode9X(opcode);
-                break;
-            case 0xA0:
-                opcodeAX(opcode);
-                break;
-            case 0xB0:
-                opcodeBX(opcode);
-                break;
-            case 0xC0:
-                opcodeCX(opcode);
-                break;
-            case 0xD0:
-                opcodeDX(opcode);
-                break;
-            case 0xE0:
-                opcodeEX(opcode);
-                break;
-            case 0xF0:
-                opcodeFX(opcode);
-                break;
-        }
-    }
 
-    private void opcode0X(byte opcode) throws CpuException, MemoryException {
+        // register index of single-byte opcodes which include one
+        byte index = (byte)(opcode & 0x07);
+
+        // temporaries of the various opcodes
+        short offset;
+        short sizeToPop;
+        short segment;
+        byte offset8;
+        short offset16;
+        short newCX;
+        short newCS;
+        short newIP;
+
         switch (opcode) {
             case (byte)0x00: // ADD [X], reg8
                 m_indirect.reset();
@@ -144,14 +109,7 @@ public class Cpu {
                 break;
             case (byte)0x0F:
                 // 0x0F - invalid opcode
-                throw new InvalidOpcodeException();
-            default:
-                throw new RuntimeException();
-        }		
-    }
-
-    private void opcode1X(byte opcode) throws MemoryException {
-        switch (opcode) {
+                throw InvalidOpcodeException.INSTANCE;
             case (byte)0x10: // ADC [X], reg8
                 m_indirect.reset();
                 m_indirect.setMem8(adc8(m_indirect.getMem8(), m_indirect.getReg8()));
@@ -208,13 +166,6 @@ public class Cpu {
             case (byte)0x1F: // POP DS
                 m_state.setDS(pop());
                 break;
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcode2X(byte opcode) throws CpuException, MemoryException {
-        switch (opcode) {			
             case (byte)0x20: // AND [X], reg8
                 m_indirect.reset();
                 m_indirect.setMem8(and8(m_indirect.getMem8(), m_indirect.getReg8()));
@@ -239,7 +190,7 @@ public class Cpu {
                 break;			
             case (byte)0x26: // TODO: 'ES:' prefix
             case (byte)0x27: // TODO: DAA
-                throw new UnimplementedOpcodeException();
+                throw UnimplementedOpcodeException.INSTANCE;
             case (byte)0x28: // SUB [X], reg8
                 m_indirect.reset();
                 m_indirect.setMem8(sub8(m_indirect.getMem8(), m_indirect.getReg8()));
@@ -264,14 +215,7 @@ public class Cpu {
                 break;	
             case (byte)0x2E: // TODO: 'CS:' prefix
             case (byte)0x2F: // TODO: DAS
-                throw new UnimplementedOpcodeException();
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcode3X(byte opcode) throws CpuException, MemoryException {
-        switch (opcode) {			
+                throw UnimplementedOpcodeException.INSTANCE;
             case (byte)0x30: // XOR [X], reg8
                 m_indirect.reset();
                 m_indirect.setMem8(xor8(m_indirect.getMem8(), m_indirect.getReg8()));
@@ -296,7 +240,7 @@ public class Cpu {
                 break;			
             case (byte)0x36: // TODO: 'SS:' prefix
             case (byte)0x37: // TODO: AAA
-                throw new UnimplementedOpcodeException();
+                throw UnimplementedOpcodeException.INSTANCE;
             case (byte)0x38: // CMP [X], reg8
                 m_indirect.reset();
                 sub8(m_indirect.getMem8(), m_indirect.getReg8());
@@ -321,15 +265,7 @@ public class Cpu {
                 break;
             case (byte)0x3E: // TODO: 'DS:' prefix
             case (byte)0x3F: // TODO: AAS
-                throw new UnimplementedOpcodeException();
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcode4X(byte opcode) {
-        byte index = (byte)(opcode & 0x07);
-        switch (opcode) {
+                throw UnimplementedOpcodeException.INSTANCE;
             case (byte)0x40: // INC reg16
             case (byte)0x41:
             case (byte)0x42:
@@ -350,14 +286,6 @@ public class Cpu {
             case (byte)0x4F:
                 m_regs.setReg16(index, dec16(m_regs.getReg16(index)));
                 break;
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcode5X(byte opcode) throws MemoryException {
-        byte index = (byte)(opcode & 0x07);
-        switch (opcode) {
             case (byte)0x50: // PUSH reg16
             case (byte)0x51:
             case (byte)0x52:
@@ -378,192 +306,80 @@ public class Cpu {
             case (byte)0x5F:
                 m_regs.setReg16(index, pop());
                 break;
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcode6X(byte opcode) throws CpuException {
-        // 0x60.. 0x6F - invalid opcodes
-        throw new InvalidOpcodeException();		
-    }
-
-    private void opcode7X(byte opcode) throws MemoryException {
-        boolean branch = false;
-        switch(opcode) {
+            case (byte)0x60: // 0x60.. 0x6F - invalid opcodes
+            case (byte)0x61:
+            case (byte)0x62:
+            case (byte)0x63:
+            case (byte)0x64:
+            case (byte)0x65:
+            case (byte)0x66:
+            case (byte)0x67:
+            case (byte)0x68:
+            case (byte)0x69:
+            case (byte)0x6A:
+            case (byte)0x6B:
+            case (byte)0x6C:
+            case (byte)0x6D:
+            case (byte)0x6E:
+            case (byte)0x6F:
+                throw InvalidOpcodeException.INSTANCE;
             case (byte)0x70: // JO
-                branch = m_state.getOverflowFlag();
+                jumpShortIf(m_state.getOverflowFlag());
                 break;
             case (byte)0x71: // JNO
-                branch = !m_state.getOverflowFlag();
+                jumpShortIf(!m_state.getOverflowFlag());
                 break;
             case (byte)0x72: // JC,JB,JNAE
-                branch = m_state.getCarryFlag();
+                jumpShortIf(m_state.getCarryFlag());
                 break;
             case (byte)0x73: // JNC,JNC,JAE
-                branch = !m_state.getCarryFlag();
+                jumpShortIf(!m_state.getCarryFlag());
                 break;
             case (byte)0x74: // JE,JZ
-                branch = m_state.getZeroFlag();
+                jumpShortIf(m_state.getZeroFlag());
                 break;
             case (byte)0x75: // JNE,JNZ
-                branch = !m_state.getZeroFlag();
+                jumpShortIf(!m_state.getZeroFlag());
                 break;
             case (byte)0x76: // JBE,JNA
-                branch = (m_state.getCarryFlag() || m_state.getZeroFlag());				
+                jumpShortIf((m_state.getCarryFlag() || m_state.getZeroFlag()));
                 break;
             case (byte)0x77: // JNBE,JA
-                branch = (!m_state.getCarryFlag() && !m_state.getZeroFlag());				
+                jumpShortIf((!m_state.getCarryFlag() && !m_state.getZeroFlag()));
                 break;
             case (byte)0x78: // JS
-                branch = m_state.getSignFlag();			
+                jumpShortIf(m_state.getSignFlag());
                 break;
             case (byte)0x79: // JNS
-                branch = !m_state.getSignFlag();			
+                jumpShortIf(!m_state.getSignFlag());
                 break;
             case (byte)0x7A: // JP,JPE
-                branch = m_state.getParityFlag();
+                jumpShortIf(m_state.getParityFlag());
                 break;
             case (byte)0x7B: // JNP,JPO
-                branch = !m_state.getParityFlag();
+                jumpShortIf(!m_state.getParityFlag());
                 break;
             case (byte)0x7C: // JL,JNGE
-                branch = (m_state.getSignFlag() != m_state.getOverflowFlag());
+                jumpShortIf((m_state.getSignFlag() != m_state.getOverflowFlag()));
                 break;
             case (byte)0x7D: // JNL,JGE
-                branch = (m_state.getSignFlag() == m_state.getOverflowFlag());
+                jumpShortIf((m_state.getSignFlag() == m_state.getOverflowFlag()));
                 break;
             case (byte)0x7E: // JLE,JNG
-                branch = m_state.getZeroFlag() ||
-                        (m_state.getSignFlag() != m_state.getOverflowFlag());
+                jumpShortIf(m_state.getZeroFlag() || (m_state.getSignFlag() != m_state.getOverflowFlag()));
                 break;
             case (byte)0x7F: // JNLE,JG
-                branch = !m_state.getZeroFlag() &&
-                        (m_state.getSignFlag() == m_state.getOverflowFlag());
+                jumpShortIf(!m_state.getZeroFlag() && (m_state.getSignFlag() == m_state.getOverflowFlag()));
                 break;
-        }
-        byte offset = m_fetcher.nextByte();
-        if (branch) {
-            m_state.setIP((short)(m_state.getIP() + offset));
-        }
-    }
-
-    private void opcode8X(byte opcode) throws CpuException, MemoryException {
-        switch (opcode) {
             case (byte)0x80: // <?> byte ptr [X], imm8
             case (byte)0x82: // TODO: opcode 0x82 is identical to opcode 0x80 ?
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case 0: // ADD
-                        m_indirect.setMem8(
-                            add8(m_indirect.getMem8(), m_fetcher.nextByte()));
-                        break;
-                    case 1: // OR
-                        m_indirect.setMem8(
-                            or8(m_indirect.getMem8(), m_fetcher.nextByte()));
-                        break;
-                    case 2: // ADC
-                        m_indirect.setMem8(
-                            adc8(m_indirect.getMem8(), m_fetcher.nextByte()));						
-                        break;
-                    case 3: // SBB
-                        m_indirect.setMem8(
-                            sbb8(m_indirect.getMem8(), m_fetcher.nextByte()));						
-                        break;
-                    case 4: // AND
-                        m_indirect.setMem8(
-                            and8(m_indirect.getMem8(), m_fetcher.nextByte()));
-                        break;
-                    case 5: // SUB
-                        m_indirect.setMem8(
-                            sub8(m_indirect.getMem8(), m_fetcher.nextByte()));						
-                        break;
-                    case 6: // XOR
-                        m_indirect.setMem8(
-                            xor8(m_indirect.getMem8(), m_fetcher.nextByte()));
-                        break;
-                    case 7: // CMP
-                        sub8(m_indirect.getMem8(), m_fetcher.nextByte());
-                        break;
-                    default:
-                        throw new RuntimeException();
-                }
+                opcode80();
                 break;
             case (byte)0x81: // <?> word ptr [X], imm16
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case 0: // ADD
-                        m_indirect.setMem16(
-                            add16(m_indirect.getMem16(), m_fetcher.nextWord()));
-                        break;
-                    case 1: // OR
-                        m_indirect.setMem16(
-                            or16(m_indirect.getMem16(), m_fetcher.nextWord()));
-                        break;
-                    case 2: // ADC
-                        m_indirect.setMem16(
-                            adc16(m_indirect.getMem16(), m_fetcher.nextWord()));						
-                        break;
-                    case 3: // SBB
-                        m_indirect.setMem16(
-                            sbb16(m_indirect.getMem16(), m_fetcher.nextWord()));						
-                        break;
-                    case 4: // AND
-                        m_indirect.setMem16(
-                            and16(m_indirect.getMem16(), m_fetcher.nextWord()));
-                        break;
-                    case 5: // SUB
-                        m_indirect.setMem16(
-                            sub16(m_indirect.getMem16(), m_fetcher.nextWord()));						
-                        break;
-                    case 6: // XOR
-                        m_indirect.setMem16(
-                            xor16(m_indirect.getMem16(), m_fetcher.nextWord()));
-                        break;
-                    case 7: // CMP
-                        sub16(m_indirect.getMem16(), m_fetcher.nextWord());
-                        break;
-                    default:
-                        throw new RuntimeException();
-                }
+                opcode81();
                 break;
             case (byte)0x83: // <?> word ptr [X], sign-extended imm8
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case 0: // ADD
-                        m_indirect.setMem16(
-                            add16(m_indirect.getMem16(), m_fetcher.nextByte()));
-                        break;
-                    case 1: // OR
-                        m_indirect.setMem16(
-                            or16(m_indirect.getMem16(), m_fetcher.nextByte()));
-                        break;
-                    case 2: // ADC
-                        m_indirect.setMem16(
-                            adc16(m_indirect.getMem16(), m_fetcher.nextByte()));						
-                        break;
-                    case 3: // SBB
-                        m_indirect.setMem16(
-                            sbb16(m_indirect.getMem16(), m_fetcher.nextByte()));						
-                        break;
-                    case 4: // AND
-                        m_indirect.setMem16(
-                            and16(m_indirect.getMem16(), m_fetcher.nextByte()));
-                        break;
-                    case 5: // SUB
-                        m_indirect.setMem16(
-                            sub16(m_indirect.getMem16(), m_fetcher.nextByte()));						
-                        break;
-                    case 6: // XOR
-                        m_indirect.setMem16(
-                            xor16(m_indirect.getMem16(), m_fetcher.nextByte()));
-                        break;
-                    case 7: // CMP
-                        sub16(m_indirect.getMem16(), m_fetcher.nextByte());
-                        break;
-                    default:
-                        throw new RuntimeException();
-                }
+                opcode83();
                 break;
             case (byte)0x84: // TEST reg8, [X]
                 m_indirect.reset();
@@ -607,12 +423,11 @@ public class Cpu {
                 break;
             case (byte)0x8D: // LEA reg16, [X]
                 m_indirect.reset();
-                RealModeAddress address = m_indirect.getMemAddress();
-                if (address == null) {
+                if (!m_indirect.hasMemAddress()) {
                     // "LEA reg16, reg16" is an invalid opcode
-                    throw new InvalidOpcodeException();
+                    throw InvalidOpcodeException.INSTANCE;
                 }
-                m_indirect.setReg16(address.getOffset());
+                m_indirect.setReg16(m_indirect.getMemOffset());
                 break;
             case (byte)0x8E: // MOV seg, [X]
                 m_indirect.reset();
@@ -624,13 +439,6 @@ public class Cpu {
                 m_indirect.reset();
                 m_indirect.setMem16(pop());
                 break;
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcode9X(byte opcode) throws CpuException, MemoryException {
-        switch (opcode) {
             case (byte)0x90: // XCHG reg16, AX
             case (byte)0x91:
             case (byte)0x92:
@@ -639,7 +447,6 @@ public class Cpu {
             case (byte)0x95:
             case (byte)0x96:
             case (byte)0x97:				
-                byte index = (byte)(opcode & 0x07);
                 short tmp = m_regs.getReg16(index);
                 m_regs.setReg16(index, m_state.getAX());
                 m_state.setAX(tmp);
@@ -659,14 +466,14 @@ public class Cpu {
                 }
                 break;				
             case (byte)0x9A: // CALL far imm16:imm16
-                short newIP = m_fetcher.nextWord();
-                short newCS = m_fetcher.nextWord();
+                newIP = m_fetcher.nextWord();
+                newCS = m_fetcher.nextWord();
                 callFar(newCS, newIP);
                 break;
             case (byte)0x9B: // original: WAIT, modified: virtual opcode NRG
                 // The virtual NRG opcode is made up of 2 consecutive WAIT opcodes
                 if (m_fetcher.nextByte() != (byte)0x9B) {
-                    throw new UnsupportedOpcodeException();
+                    throw UnsupportedOpcodeException.INSTANCE;
                 }
                 int energy = Unsigned.unsignedShort(m_state.getEnergy());
                 if (energy < 0xFFFF) {
@@ -689,29 +496,21 @@ public class Cpu {
             case (byte)0x9F: // LAHF
                 m_state.setAH((byte)m_state.getFlags());
                 break;
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcodeAX(byte opcode) throws MemoryException {
-        RealModeAddress address = null;
-        switch (opcode) {
             case (byte)0xA0: // MOV AL, [imm16]
-                address = new RealModeAddress(m_state.getDS(), m_fetcher.nextWord());
-                m_state.setAL(m_memory.readByte(address));
+                offset = m_fetcher.nextWord();
+                m_state.setAL(m_memory.readByte(m_state.getDS(), offset));
                 break;
             case (byte)0xA1: // MOV AX, [imm16]
-                address = new RealModeAddress(m_state.getDS(), m_fetcher.nextWord());
-                m_state.setAX(m_memory.readWord(address));
+                offset = m_fetcher.nextWord();
+                m_state.setAX(m_memory.readWord(m_state.getDS(), offset));
                 break;
             case (byte)0xA2: // MOV [imm16], AL
-                address = new RealModeAddress(m_state.getDS(), m_fetcher.nextWord());
-                m_memory.writeByte(address, m_state.getAL());
+                offset = m_fetcher.nextWord();
+                m_memory.writeByte(m_state.getDS(), offset, m_state.getAL());
                 break;
             case (byte)0xA3: // MOV [imm16], AX
-                address = new RealModeAddress(m_state.getDS(), m_fetcher.nextWord());
-                m_memory.writeWord(address, m_state.getAX());
+                offset = m_fetcher.nextWord();
+                m_memory.writeWord(m_state.getDS(), offset, m_state.getAX());
                 break;
             case (byte)0xA4: // MOVSB
                 movsb();
@@ -749,14 +548,6 @@ public class Cpu {
             case (byte)0xAF: // SCASW
                 scasw();
                 break;				
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcodeBX(byte opcode) throws MemoryException {
-        byte index = (byte)(opcode & 0x07);
-        switch (opcode) {
             case (byte)0xB0: // MOV reg8, imm8
             case (byte)0xB1:
             case (byte)0xB2:
@@ -777,20 +568,10 @@ public class Cpu {
             case (byte)0xBF:
                 m_regs.setReg16(index, m_fetcher.nextWord());
                 break;
-            default:
-                throw new RuntimeException();
-        }
-    }	
-
-    private void opcodeCX(byte opcode) throws CpuException, MemoryException {
-        short sizeToPop;
-        RealModeAddress address1 = null;
-        RealModeAddress address2 = null;
-        switch (opcode) {
             case (byte)0xC0:
             case (byte)0xC1:
                 // 0xC0.. 0xC1 - invalid opcodes
-                throw new InvalidOpcodeException();
+                throw InvalidOpcodeException.INSTANCE;
             case (byte)0xC2: // RETN [imm16]
                 sizeToPop = m_fetcher.nextWord();
                 m_state.setIP(pop());				
@@ -801,29 +582,27 @@ public class Cpu {
                 break;
             case (byte)0xC4: // LES reg16, [X]
                 m_indirect.reset();
-                address1 = m_indirect.getMemAddress();
-                if (address1 == null) {
+                if (!m_indirect.hasMemAddress()) {
                     // "LES reg16, reg16" is an invalid opcode
-                    throw new InvalidOpcodeException();					
+                    throw InvalidOpcodeException.INSTANCE;					
                 }
-                address2 = new RealModeAddress(
-                    address1.getSegment(), (short)(address1.getOffset() + 2));
+                segment = m_indirect.getMemSegment();
+                offset = m_indirect.getMemOffset();
 
-                m_indirect.setReg16(m_memory.readWord(address1));
-                m_state.setES(m_memory.readWord(address2));
+                m_indirect.setReg16(m_memory.readWord(segment, offset));
+                m_state.setES(m_memory.readWord(segment, (short)(offset + 2)));
                 break;			
             case (byte)0xC5: // LDS reg16, [X]
                 m_indirect.reset();
-                address1 = m_indirect.getMemAddress();
-                if (address1 == null) {
+                if (!m_indirect.hasMemAddress()) {
                     // "LDS reg16, reg16" is an invalid opcode
-                    throw new InvalidOpcodeException();					
+                    throw InvalidOpcodeException.INSTANCE;					
                 }
-                address2 = new RealModeAddress(
-                    address1.getSegment(), (short)(address1.getOffset() + 2));
+                segment = m_indirect.getMemSegment();
+                offset = m_indirect.getMemOffset();
 
-                m_indirect.setReg16(m_memory.readWord(address1));
-                m_state.setDS(m_memory.readWord(address2));
+                m_indirect.setReg16(m_memory.readWord(segment, offset));
+                m_state.setDS(m_memory.readWord(segment, (short)(offset + 2)));
                 break;			
             case (byte)0xC6: // MOV [X], imm8
                 // Note: since Reg index bits are ignored, there are 8 different
@@ -840,7 +619,7 @@ public class Cpu {
             case (byte)0xC8:
             case (byte)0xC9:
                 // 0xC8.. 0xC9 - invalid opcodes
-                throw new InvalidOpcodeException();
+                throw InvalidOpcodeException.INSTANCE;
             case (byte)0xCA: // RETF [imm16]
                 sizeToPop = m_fetcher.nextWord();
                 m_state.setIP(pop());				
@@ -852,7 +631,7 @@ public class Cpu {
                 m_state.setCS(pop());
                 break;
             case (byte)0xCC: // INT3
-                throw new IntOpcodeException();
+                throw IntOpcodeException.INSTANCE;
             case (byte)0xCD: // INT [imm8]
                 {
                     byte opcodeId = m_fetcher.nextByte();
@@ -861,154 +640,38 @@ public class Cpu {
                     } else if (opcodeId == (byte)0x87) {
                         int87();
                     } else {
-                        throw new IntOpcodeException();
+                        throw IntOpcodeException.INSTANCE;
                     }
                 }
                 break;
             case (byte)0xCE: // INTO
-                throw new IntOpcodeException();
+                throw IntOpcodeException.INSTANCE;
             case (byte)0xCF: // IRET
                 m_state.setIP(pop());
                 m_state.setCS(pop());
                 m_state.setFlags(pop());
                 break;
-            default:
-                throw new RuntimeException();
-        }		
-    }
-
-    private void opcodeDX(byte opcode) throws CpuException, MemoryException {
-        switch (opcode) {
             case (byte)0xD0: // <?> byte ptr [X], 1
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case (byte)0x00: // ROL
-                        rol8(1);
-                        break;
-                    case (byte)0x01: // ROR
-                        ror8(1);
-                        break;
-                    case (byte)0x02: // RCL
-                        rcl8(1);
-                        break;
-                    case (byte)0x03: // RCR
-                        rcr8(1);
-                        break;
-                    case (byte)0x04: // SHL
-                        shl8(1);
-                        break;
-                    case (byte)0x05: // SHR
-                        shr8(1);
-                        break;
-                    case (byte)0x06: // invalid opcode
-                        throw new InvalidOpcodeException();
-                    case (byte)0x07: // SAR
-                        sar8(1);
-                        break;
-                    default:
-                        throw new RuntimeException();
-                }
+                opcodeD0();
                 break;
             case (byte)0xD1: // <?> word ptr [X], 1
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case (byte)0x00: // ROL
-                        rol16(1);
-                        break;
-                    case (byte)0x01: // ROR
-                        ror16(1);
-                        break;
-                    case (byte)0x02: // RCL
-                        rcl16(1);
-                        break;
-                    case (byte)0x03: // RCR
-                        rcr16(1);
-                        break;
-                    case (byte)0x04: // SHL
-                        shl16(1);
-                        break;
-                    case (byte)0x05: // SHR
-                        shr16(1);
-                        break;
-                    case (byte)0x06: // invalid opcode
-                        throw new InvalidOpcodeException();
-                    case (byte)0x07: // SAR
-                        sar16(1);
-                        break;
-                    default:
-                        throw new RuntimeException();
-                }
+                opcodeD1();
                 break;
             case (byte)0xD2: // <?> byte ptr [X], CL
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case (byte)0x00: // ROL
-                        rol8(m_state.getCL());
-                        break;
-                    case (byte)0x01: // ROR
-                        ror8(m_state.getCL());
-                        break;
-                    case (byte)0x02: // RCL
-                        rcl8(m_state.getCL());
-                        break;
-                    case (byte)0x03: // RCR
-                        rcr8(m_state.getCL());
-                        break;
-                    case (byte)0x04: // SHL
-                        shl8(m_state.getCL());
-                        break;
-                    case (byte)0x05: // SHR
-                        shr8(m_state.getCL());
-                        break;
-                    case (byte)0x06: // invalid opcode
-                        throw new InvalidOpcodeException();
-                    case (byte)0x07: // SAR
-                        sar8(m_state.getCL());
-                        break;
-                    default:
-                        throw new RuntimeException();
-                }
+                opcodeD2();
                 break;
             case (byte)0xD3: // <?> word ptr [x], CL
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case (byte)0x00: // ROL
-                        rol16(m_state.getCL());
-                        break;
-                    case (byte)0x01: // ROR
-                        ror16(m_state.getCL());
-                        break;
-                    case (byte)0x02: // RCL
-                        rcl16(m_state.getCL());
-                        break;
-                    case (byte)0x03: // RCR
-                        rcr16(m_state.getCL());
-                        break;
-                    case (byte)0x04: // SHL
-                        shl16(m_state.getCL());
-                        break;
-                    case (byte)0x05: // SHR
-                        shr16(m_state.getCL());
-                        break;
-                    case (byte)0x06: // invalid opcode
-                        throw new InvalidOpcodeException();
-                    case (byte)0x07: // SAR
-                        sar16(m_state.getCL());
-                        break;
-                    default:
-                        throw new RuntimeException();
-                }
+                opcodeD3();
                 break;
             case (byte)0xD4: // TODO: AAM
             case (byte)0xD5: // TODO: AAD
-                throw new UnimplementedOpcodeException();
+                throw UnimplementedOpcodeException.INSTANCE;
             case (byte)0xD6:
                 // 0xD6 - invalid opcode
-                throw new InvalidOpcodeException();
+                throw InvalidOpcodeException.INSTANCE;
             case (byte)0xD7: // XLAT, XLATB
-                RealModeAddress address = new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getBX() + Unsigned.unsignedByte(m_state.getAL())));
-                m_state.setAL(m_memory.readByte(address));
+                m_state.setAL(m_memory.readByte(m_state.getDS(),
+                    (short)(m_state.getBX() + Unsigned.unsignedByte(m_state.getAL()))));
                 break;
             case (byte)0xD8: // FADD dword
             case (byte)0xD9: // FLD dword
@@ -1018,19 +681,7 @@ public class Cpu {
             case (byte)0xDD: // FLD qword
             case (byte)0xDE: // FIADD word
             case (byte)0xDF: // FILD word
-                throw new UnsupportedOpcodeException();
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcodeEX(byte opcode) throws CpuException, MemoryException {
-        byte offset8;
-        short offset16;
-        short newCX;
-        short newCS;
-        short newIP;
-        switch (opcode) {
+                throw UnsupportedOpcodeException.INSTANCE;
             case (byte)0xE0: // LOOPNZ, LOOPNE
                 offset8 = m_fetcher.nextByte();
                 newCX = (short)(m_state.getCX() - 1);
@@ -1065,7 +716,7 @@ public class Cpu {
             case (byte)0xE5: // IN AX, imm8
             case (byte)0xE6: // OUT imm8, AL
             case (byte)0xE7: // OUT imm8, AX				
-                throw new UnsupportedOpcodeException();
+                throw UnsupportedOpcodeException.INSTANCE;
             case (byte)0xE8: // CALL near imm16
                 offset16 = m_fetcher.nextWord();
                 callNear((short)(m_state.getIP() + offset16));
@@ -1088,242 +739,29 @@ public class Cpu {
             case (byte)0xED: // IN AX, DX
             case (byte)0xEE: // OUT DX, AL
             case (byte)0xEF: // OUT DX, AX
-                throw new UnsupportedOpcodeException();
-            default:
-                throw new RuntimeException();
-        }
-    }
-
-    private void opcodeFX(byte opcode) throws CpuException, MemoryException {
-        byte nextOpcode;
-        boolean doneLooping;
-        switch (opcode) {
+                throw UnsupportedOpcodeException.INSTANCE;
             case (byte)0xF0: // LOCK
-                throw new UnsupportedOpcodeException();
+                throw UnsupportedOpcodeException.INSTANCE;
             case (byte)0xF1:
                 // 0xF1 - invalid opcode
-                throw new InvalidOpcodeException();
+                throw InvalidOpcodeException.INSTANCE;
             case (byte)0xF2: // REPNZ
-                nextOpcode = m_fetcher.nextByte();
-                doneLooping = true;
-                if (m_state.getCX() != 0) {
-                    m_state.setCX((short)(m_state.getCX() - 1));
-                    doneLooping = false;
-                }
-                switch (nextOpcode) {
-                    case (byte)0xA6: // REPNZ CMPSB
-                        if (!doneLooping) {
-                            cmpsb();
-                            doneLooping = m_state.getZeroFlag();
-                        }
-                        break;
-                    case (byte)0xA7: // REPNZ CMPSW
-                        if (!doneLooping) {
-                            cmpsw();
-                            doneLooping = m_state.getZeroFlag();
-                        }
-                        break;
-                    case (byte)0xAE: // REPNZ SCASB
-                        if (!doneLooping) {
-                            scasb();
-                            doneLooping = m_state.getZeroFlag();
-                        }
-                        break;
-                    case (byte)0xAF: // REPNZ SCASW
-                        if (!doneLooping) {
-                            scasw();
-                            doneLooping = m_state.getZeroFlag();							
-                        }
-                        break;
-                    default:
-                        throw new InvalidOpcodeException();							
-                }				
-                // loop if needed
-                if (!doneLooping) {
-                    m_state.setIP((short)(m_state.getIP() - 2));					
-                }
-                break;				
+                opcodeF2();
+                break;
             case (byte)0xF3: // REP, REPZ
-                nextOpcode = m_fetcher.nextByte();
-                doneLooping = true;
-                if (m_state.getCX() != 0) {
-                    m_state.setCX((short)(m_state.getCX() - 1));
-                    doneLooping = false;
-                }
-                switch (nextOpcode) {
-                    case (byte)0xA4: // REP MOVSB
-                        if (!doneLooping) {
-                            movsb();
-                        }
-                        break;
-                    case (byte)0xA5: // REP MOVSW
-                        if (!doneLooping) {
-                            movsw();
-                        }
-                        break;
-                    case (byte)0xA6: // REPZ CMPSB
-                        if (!doneLooping) {
-                            cmpsb();
-                            doneLooping = !m_state.getZeroFlag();
-                        }
-                        break;
-                    case (byte)0xA7: // REPZ CMPSW
-                        if (!doneLooping) {
-                            cmpsw();
-                            doneLooping = !m_state.getZeroFlag();
-                        }
-                        break;
-                    case (byte)0xAA: // REP STOSB
-                        if (!doneLooping) {
-                            stosb();
-                        }
-                        break;				
-                    case (byte)0xAB: // REP STOSW
-                        if (!doneLooping) {
-                            stosw();
-                        }
-                        break;				
-                    case (byte)0xAC: // REP LODSB
-                        if (!doneLooping) {
-                            lodsb();
-                        }
-                        break;				
-                    case (byte)0xAD: // REP LODSW
-                        if (!doneLooping) {
-                            lodsw();
-                        }
-                        break;
-                    case (byte)0xAE: // REPZ SCASB
-                        if (!doneLooping) {
-                            scasb();
-                            doneLooping = !m_state.getZeroFlag();
-                        }
-                        break;
-                    case (byte)0xAF: // REPZ SCASW
-                        if (!doneLooping) {
-                            scasw();
-                            doneLooping = !m_state.getZeroFlag();
-                        }
-                        break;
-                    default:
-                        throw new InvalidOpcodeException();
-                }				
-                // loop if needed
-                if (!doneLooping) {
-                    m_state.setIP((short)(m_state.getIP() - 2));					
-                }
+                opcodeF3();
                 break;
             case (byte)0xF4: // HLT
-                throw new UnsupportedOpcodeException();
+                throw UnsupportedOpcodeException.INSTANCE;
             case (byte)0xF5: // CMC
                 m_state.setCarryFlag(!m_state.getCarryFlag());
                 break;
             case (byte)0xF6: // <?> byte ptr [X]
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case 0: // TEST imm8
-                        and8(m_indirect.getMem8(), m_fetcher.nextByte());
-                        break;
-                    case 1:
-                        throw new InvalidOpcodeException();							
-                    case 2: // NOT						
-                        m_indirect.setMem8((byte)(m_indirect.getMem8() ^ 0xFF));
-                        break;
-                    case 3: // NEG
-                        m_indirect.setMem8(sub8((byte)0, m_indirect.getMem8()));						
-                        break;
-                    case 4: // MUL
-                        // multiply
-                        short result = (short)(
-                            Unsigned.unsignedByte(m_state.getAL()) *
-                            Unsigned.unsignedByte(m_indirect.getMem8()));
-                        m_state.setAH((byte)(result >> 8));
-                        m_state.setAL((byte)result);
-
-                        // update flags
-                        if (m_state.getAH() == 0) {
-                            m_state.setOverflowFlag(false);
-                            m_state.setCarryFlag(false);
-                        } else {
-                            m_state.setOverflowFlag(true);
-                            m_state.setCarryFlag(true);							
-                        }
-                        break;
-                    case 5: // TODO: IMUL
-                        throw new UnimplementedOpcodeException();
-                    case 6: // DIV
-                        int tmp = Unsigned.unsignedShort(m_state.getAX());
-                        short divisor = Unsigned.unsignedByte(m_indirect.getMem8());
-                        if (divisor == 0) { // divide by zero ?
-                            throw new DivisionException();
-                        }
-                        short quotient = (short)(tmp / divisor);
-                        if (quotient > 0xFF) { // divide overflow ?
-                            throw new DivisionException();
-                        }
-                        m_state.setAL((byte)quotient);
-                        m_state.setAH((byte)(tmp % divisor));
-                        break;
-                    case 7: // TODO: IDIV
-                        throw new UnimplementedOpcodeException();
-                    default:
-                        throw new RuntimeException();
-                }
-                break;		
+                opcodeF6();
+                break;
             case (byte)0xF7: // <?> word ptr [X]
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case 0: // TEST imm16
-                        and16(m_indirect.getMem16(), m_fetcher.nextWord());
-                        break;
-                    case 1:
-                        throw new InvalidOpcodeException();							
-                    case 2: // NOT						
-                        m_indirect.setMem16((short)(m_indirect.getMem16() ^ 0xFFFF));
-                        break;
-                    case 3: // NEG
-                        m_indirect.setMem16(sub16((short)0, m_indirect.getMem16()));						
-                        break;
-                    case 4: // MUL
-                        // multiply
-                        int result =
-                            Unsigned.unsignedShort(m_state.getAX()) *
-                            Unsigned.unsignedShort(m_indirect.getMem16());
-                        m_state.setDX((short)(result >> 16));
-                        m_state.setAX((short)result);
-
-                        // update flags
-                        if (m_state.getDX() == 0) {
-                            m_state.setOverflowFlag(false);
-                            m_state.setCarryFlag(false);
-                        } else {
-                            m_state.setOverflowFlag(true);
-                            m_state.setCarryFlag(true);							
-                        }
-                        break;
-                    case 5: // TODO: IMUL
-                        throw new UnimplementedOpcodeException();
-                    case 6: // DIV
-                        long tmp = Unsigned.unsignedInt(
-                            (Unsigned.unsignedShort(m_state.getDX()) << 16) +
-                            Unsigned.unsignedShort(m_state.getAX()));
-                        int divisor = Unsigned.unsignedShort(m_indirect.getMem16());
-                        if (divisor == 0) { // divide by zero ?
-                            throw new DivisionException();
-                        }
-                        int quotient = (int)(tmp / divisor);
-                        if (quotient > 0xFFFF) { // divide overflow ?
-                            throw new DivisionException();
-                        }
-                        m_state.setAX((short)quotient);
-                        m_state.setDX((short)(tmp % divisor));
-                        break;
-                    case 7: // TODO: IDIV
-                        throw new UnimplementedOpcodeException();
-                    default:
-                        throw new RuntimeException();
-                }
-                break;		
+                opcodeF7();
+                break;
             case (byte)0xF8: // CLC
                 m_state.setCarryFlag(false);
                 break;
@@ -1343,96 +781,609 @@ public class Cpu {
                 m_state.setDirectionFlag(true);
                 break;				
             case (byte)0xFE: // <?> byte ptr [X]
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case 0: // INC
-                        m_indirect.setMem8(inc8(m_indirect.getMem8()));
-                        break;
-                    case 1: // DEC
-                        m_indirect.setMem8(dec8(m_indirect.getMem8()));
-                        break;
-                    case 2:
-                    case 3:
-                    case 4:
-                    case 5:
-                    case 6:
-                    case 7:
-                        // invalid opcodes
-                        throw new InvalidOpcodeException();
-                    default:
-                        throw new RuntimeException();
-                }
+                opcodeFE();
                 break;
             case (byte)0xFF: // <?> word ptr [X]
-                m_indirect.reset();
-                switch (m_indirect.getRegIndex()) {
-                    case 0: // INC
-                        m_indirect.setMem16(inc16(m_indirect.getMem16()));
-                        break;
-                    case 1: // DEC
-                        m_indirect.setMem16(dec16(m_indirect.getMem16()));
-                        break;
-                    case 2: // CALL near
-                        callNear(m_indirect.getMem16());
-                        break;
-                    case 3: // CALL far
-                        {
-                            RealModeAddress address = m_indirect.getMemAddress();
-                            if (address == null) {
-                                throw new InvalidOpcodeException();
-                            }
-
-                            short newIP = m_memory.readWord(address);
-                            address = new RealModeAddress(address.getSegment(),
-                                (short)(address.getOffset() + 2));
-                            short newCS = m_memory.readWord(address);
-                            callFar(newCS, newIP);
-                        }
-                        break;
-                    case 4: // JMP near
-                        // FIXME: JMP SP bug ?
-                        m_state.setIP(m_indirect.getMem16());
-                        break;
-                    case 5: // JMP far
-                        {
-                            RealModeAddress address = m_indirect.getMemAddress();
-                            if (address == null) {
-                                throw new InvalidOpcodeException();
-                            }
-
-                            short newIP = m_memory.readWord(address);
-                            address = new RealModeAddress(address.getSegment(),
-                                (short)(address.getOffset() + 2));
-                            short newCS = m_memory.readWord(address);
-                            m_state.setCS(newCS);
-                            m_state.setIP(newIP);
-                        }
-                        break;
-                    case 6: // PUSH
-                        push(m_indirect.getMem16());
-                        break;
-                    case 7: // invalid opcode
-                        throw new InvalidOpcodeException();
-                    default:
-                        throw new RuntimeException();
+                opcodeFF();
+                break;
+        }
+    }
+
+    /**
+     * Implements opcodes 0x80 & 0x82: ADD/OR/ADC/SBB/AND/SUB/XOR/CMP byte ptr [X], imm8.
+     */
+    private void opcode80() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case 0: // ADD
+                m_indirect.setMem8(
+                    add8(m_indirect.getMem8(), m_fetcher.nextByte()));
+                break;
+            case 1: // OR
+                m_indirect.setMem8(
+                    or8(m_indirect.getMem8(), m_fetcher.nextByte()));
+                break;
+            case 2: // ADC
+                m_indirect.setMem8(
+                    adc8(m_indirect.getMem8(), m_fetcher.nextByte()));						
+                break;
+            case 3: // SBB
+                m_indirect.setMem8(
+                    sbb8(m_indirect.getMem8(), m_fetcher.nextByte()));						
+                break;
+            case 4: // AND
+                m_indirect.setMem8(
+                    and8(m_indirect.getMem8(), m_fetcher.nextByte()));
+                break;
+            case 5: // SUB
+                m_indirect.setMem8(
+                    sub8(m_indirect.getMem8(), m_fetcher.nextByte()));						
+                break;
+            case 6: // XOR
+                m_indirect.setMem8(
+                    xor8(m_indirect.getMem8(), m_fetcher.nextByte()));
+                break;
+            case 7: // CMP
+                sub8(m_indirect.getMem8(), m_fetcher.nextByte());
+                break;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0x81: ADD/OR/ADC/SBB/AND/SUB/XOR/CMP word ptr [X], imm16.
+     */
+    private void opcode81() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case 0: // ADD
+                m_indirect.setMem16(
+                    add16(m_indirect.getMem16(), m_fetcher.nextWord()));
+                break;
+            case 1: // OR
+                m_indirect.setMem16(
+                    or16(m_indirect.getMem16(), m_fetcher.nextWord()));
+                break;
+            case 2: // ADC
+                m_indirect.setMem16(
+                    adc16(m_indirect.getMem16(), m_fetcher.nextWord()));						
+                break;
+            case 3: // SBB
+                m_indirect.setMem16(
+                    sbb16(m_indirect.getMem16(), m_fetcher.nextWord()));						
+                break;
+            case 4: // AND
+                m_indirect.setMem16(
+                    and16(m_indirect.getMem16(), m_fetcher.nextWord()));
+                break;
+            case 5: // SUB
+                m_indirect.setMem16(
+                    sub16(m_indirect.getMem16(), m_fetcher.nextWord()));						
+                break;
+            case 6: // XOR
+                m_indirect.setMem16(
+                    xor16(m_indirect.getMem16(), m_fetcher.nextWord()));
+                break;
+            case 7: // CMP
+                sub16(m_indirect.getMem16(), m_fetcher.nextWord());
+                break;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0x83: ADD/OR/ADC/SBB/AND/SUB/XOR/CMP word ptr [X], sign-extended imm8.
+     */
+    private void opcode83() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case 0: // ADD
+                m_indirect.setMem16(
+                    add16(m_indirect.getMem16(), m_fetcher.nextByte()));
+                break;
+            case 1: // OR
+                m_indirect.setMem16(
+                    or16(m_indirect.getMem16(), m_fetcher.nextByte()));
+                break;
+            case 2: // ADC
+                m_indirect.setMem16(
+                    adc16(m_indirect.getMem16(), m_fetcher.nextByte()));						
+                break;
+            case 3: // SBB
+                m_indirect.setMem16(
+                    sbb16(m_indirect.getMem16(), m_fetcher.nextByte()));						
+                break;
+            case 4: // AND
+                m_indirect.setMem16(
+                    and16(m_indirect.getMem16(), m_fetcher.nextByte()));
+                break;
+            case 5: // SUB
+                m_indirect.setMem16(
+                    sub16(m_indirect.getMem16(), m_fetcher.nextByte()));						
+                break;
+            case 6: // XOR
+                m_indirect.setMem16(
+                    xor16(m_indirect.getMem16(), m_fetcher.nextByte()));
+                break;
+            case 7: // CMP
+                sub16(m_indirect.getMem16(), m_fetcher.nextByte());
+                break;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xD0: ROL/ROR/RCL/RCR/SHL/SHR/SAR byte ptr [X], 1.
+     */
+    private void opcodeD0() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case (byte)0x00: // ROL
+                rol8(1);
+                break;
+            case (byte)0x01: // ROR
+                ror8(1);
+                break;
+            case (byte)0x02: // RCL
+                rcl8(1);
+                break;
+            case (byte)0x03: // RCR
+                rcr8(1);
+                break;
+            case (byte)0x04: // SHL
+                shl8(1);
+                break;
+            case (byte)0x05: // SHR
+                shr8(1);
+                break;
+            case (byte)0x06: // invalid opcode
+                throw InvalidOpcodeException.INSTANCE;
+            case (byte)0x07: // SAR
+                sar8(1);
+                break;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xD1: ROL/ROR/RCL/RCR/SHL/SHR/SAR word ptr [X], 1.
+     */
+    private void opcodeD1() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case (byte)0x00: // ROL
+                rol16(1);
+                break;
+            case (byte)0x01: // ROR
+                ror16(1);
+                break;
+            case (byte)0x02: // RCL
+                rcl16(1);
+                break;
+            case (byte)0x03: // RCR
+                rcr16(1);
+                break;
+            case (byte)0x04: // SHL
+                shl16(1);
+                break;
+            case (byte)0x05: // SHR
+                shr16(1);
+                break;
+            case (byte)0x06: // invalid opcode
+                throw InvalidOpcodeException.INSTANCE;
+            case (byte)0x07: // SAR
+                sar16(1);
+                break;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xD2: ROL/ROR/RCL/RCR/SHL/SHR/SAR byte ptr [X], CL.
+     */
+    private void opcodeD2() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case (byte)0x00: // ROL
+                rol8(m_state.getCL());
+                break;
+            case (byte)0x01: // ROR
+                ror8(m_state.getCL());
+                break;
+            case (byte)0x02: // RCL
+                rcl8(m_state.getCL());
+                break;
+            case (byte)0x03: // RCR
+                rcr8(m_state.getCL());
+                break;
+            case (byte)0x04: // SHL
+                shl8(m_state.getCL());
+                break;
+            case (byte)0x05: // SHR
+                shr8(m_state.getCL());
+                break;
+            case (byte)0x06: // invalid opcode
+                throw InvalidOpcodeException.INSTANCE;
+            case (byte)0x07: // SAR
+                sar8(m_state.getCL());
+                break;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xD3: ROL/ROR/RCL/RCR/SHL/SHR/SAR word ptr [X], CL.
+     */
+    private void opcodeD3() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case (byte)0x00: // ROL
+                rol16(m_state.getCL());
+                break;
+            case (byte)0x01: // ROR
+                ror16(m_state.getCL());
+                break;
+            case (byte)0x02: // RCL
+                rcl16(m_state.getCL());
+                break;
+            case (byte)0x03: // RCR
+                rcr16(m_state.getCL());
+                break;
+            case (byte)0x04: // SHL
+                shl16(m_state.getCL());
+                break;
+            case (byte)0x05: // SHR
+                shr16(m_state.getCL());
+                break;
+            case (byte)0x06: // invalid opcode
+                throw InvalidOpcodeException.INSTANCE;
+            case (byte)0x07: // SAR
+                sar16(m_state.getCL());
+                break;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xF2: REPNZ CMPSB/CMPSW/SCASB/SCASW.
+     */
+    private void opcodeF2() throws CpuException, MemoryException {
+        byte nextOpcode = m_fetcher.nextByte();
+        boolean doneLooping = true;
+        if (m_state.getCX() != 0) {
+            m_state.setCX((short)(m_state.getCX() - 1));
+            doneLooping = false;
+        }
+        switch (nextOpcode) {
+            case (byte)0xA6: // REPNZ CMPSB
+                if (!doneLooping) {
+                    cmpsb();
+                    doneLooping = m_state.getZeroFlag();
+                }
+                break;
+            case (byte)0xA7: // REPNZ CMPSW
+                if (!doneLooping) {
+                    cmpsw();
+                    doneLooping = m_state.getZeroFlag();
+                }
+                break;
+            case (byte)0xAE: // REPNZ SCASB
+                if (!doneLooping) {
+                    scasb();
+                    doneLooping = m_state.getZeroFlag();
+                }
+                break;
+            case (byte)0xAF: // REPNZ SCASW
+                if (!doneLooping) {
+                    scasw();
+                    doneLooping = m_state.getZeroFlag();							
+                }
+                break;
+            default:
+                throw InvalidOpcodeException.INSTANCE;							
+        }				
+        // loop if needed
+        if (!doneLooping) {
+            m_state.setIP((short)(m_state.getIP() - 2));					
+        }
+    }
+
+    /**
+     * Implements opcode 0xF3: REP MOVSB/MOVSW/STOSB/STOSW/LODSB/LODSW, REPZ CMPSB/CMPSW/SCASB/SCASW.
+     */
+    private void opcodeF3() throws CpuException, MemoryException {
+        byte nextOpcode = m_fetcher.nextByte();
+        boolean doneLooping = true;
+        if (m_state.getCX() != 0) {
+            m_state.setCX((short)(m_state.getCX() - 1));
+            doneLooping = false;
+        }
+        switch (nextOpcode) {
+            case (byte)0xA4: // REP MOVSB
+                if (!doneLooping) {
+                    movsb();
+                }
+                break;
+            case (byte)0xA5: // REP MOVSW
+                if (!doneLooping) {
+                    movsw();
+                }
+                break;
+            case (byte)0xA6: // REPZ CMPSB
+                if (!doneLooping) {
+                    cmpsb();
+                    doneLooping = !m_state.getZeroFlag();
+                }
+                break;
+            case (byte)0xA7: // REPZ CMPSW
+                if (!doneLooping) {
+                    cmpsw();
+                    doneLooping = !m_state.getZeroFlag();
+                }
+                break;
+            case (byte)0xAA: // REP STOSB
+                if (!doneLooping) {
+                    stosb();
+                }
+                break;				
+            case (byte)0xAB: // REP STOSW
+                if (!doneLooping) {
+                    stosw();
                 }
+                break;				
+            case (byte)0xAC: // REP LODSB
+                if (!doneLooping) {
+                    lodsb();
+                }
+                break;				
+            case (byte)0xAD: // REP LODSW
+                if (!doneLooping) {
+                    lodsw();
+                }
+                break;
+            case (byte)0xAE: // REPZ SCASB
+                if (!doneLooping) {
+                    scasb();
+                    doneLooping = !m_state.getZeroFlag();
+                }
+                break;
+            case (byte)0xAF: // REPZ SCASW
+                if (!doneLooping) {
+                    scasw();
+                    doneLooping = !m_state.getZeroFlag();
+                }
+                break;
+            default:
+                throw InvalidOpcodeException.INSTANCE;
+        }				
+        // loop if needed
+        if (!doneLooping) {
+            m_state.setIP((short)(m_state.getIP() - 2));					
+        }
+    }
+
+    /**
+     * Implements opcode 0xF6: TEST/NOT/NEG/MUL/DIV byte ptr [X].
+     */
+    private void opcodeF6() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case 0: // TEST imm8
+                and8(m_indirect.getMem8(), m_fetcher.nextByte());
+                break;
+            case 1:
+                throw InvalidOpcodeException.INSTANCE;							
+            case 2: // NOT						
+                m_indirect.setMem8((byte)(m_indirect.getMem8() ^ 0xFF));
+                break;
+            case 3: // NEG
+                m_indirect.setMem8(sub8((byte)0, m_indirect.getMem8()));						
+                break;
+            case 4: // MUL
+                // multiply
+                short result = (short)(
+                    Unsigned.unsignedByte(m_state.getAL()) *
+                    Unsigned.unsignedByte(m_indirect.getMem8()));
+                m_state.setAH((byte)(result >> 8));
+                m_state.setAL((byte)result);
+
+                // update flags
+                if (m_state.getAH() == 0) {
+                    m_state.setOverflowFlag(false);
+                    m_state.setCarryFlag(false);
+                } else {
+                    m_state.setOverflowFlag(true);
+                    m_state.setCarryFlag(true);							
+                }
+                break;
+            case 5: // TODO: IMUL
+                throw UnimplementedOpcodeException.INSTANCE;
+            case 6: // DIV
+                int tmp = Unsigned.unsignedShort(m_state.getAX());
+                short divisor = Unsigned.unsignedByte(m_indirect.getMem8());
+                if (divisor == 0) { // divide by zero ?
+                    throw DivisionException.INSTANCE;
+                }
+                short quotient = (short)(tmp / divisor);
+                if (quotient > 0xFF) { // divide overflow ?
+                    throw DivisionException.INSTANCE;
+                }
+                m_state.setAL((byte)quotient);
+                m_state.setAH((byte)(tmp % divisor));
+                break;
+            case 7: // TODO: IDIV
+                throw UnimplementedOpcodeException.INSTANCE;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xF7: TEST/NOT/NEG/MUL/DIV word ptr [X].
+     */
+    private void opcodeF7() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case 0: // TEST imm16
+                and16(m_indirect.getMem16(), m_fetcher.nextWord());
+                break;
+            case 1:
+                throw InvalidOpcodeException.INSTANCE;							
+            case 2: // NOT						
+                m_indirect.setMem16((short)(m_indirect.getMem16() ^ 0xFFFF));
+                break;
+            case 3: // NEG
+                m_indirect.setMem16(sub16((short)0, m_indirect.getMem16()));						
+                break;
+            case 4: // MUL
+                // multiply
+                int result =
+                    Unsigned.unsignedShort(m_state.getAX()) *
+                    Unsigned.unsignedShort(m_indirect.getMem16());
+                m_state.setDX((short)(result >> 16));
+                m_state.setAX((short)result);
+
+                // update flags
+                if (m_state.getDX() == 0) {
+                    m_state.setOverflowFlag(false);
+                    m_state.setCarryFlag(false);
+                } else {
+                    m_state.setOverflowFlag(true);
+                    m_state.setCarryFlag(true);							
+                }
+                break;
+            case 5: // TODO: IMUL
+                throw UnimplementedOpcodeException.INSTANCE;
+            case 6: // DIV
+                long tmp = Unsigned.unsignedInt(
+                    (Unsigned.unsignedShort(m_state.getDX()) << 16) +
+                    Unsigned.unsignedShort(m_state.getAX()));
+                int divisor = Unsigned.unsignedShort(m_indirect.getMem16());
+                if (divisor == 0) { // divide by zero ?
+                    throw DivisionException.INSTANCE;
+                }
+                int quotient = (int)(tmp / divisor);
+                if (quotient > 0xFFFF) { // divide overflow ?
+                    throw DivisionException.INSTANCE;
+                }
+                m_state.setAX((short)quotient);
+                m_state.setDX((short)(tmp % divisor));
+                break;
+            case 7: // TODO: IDIV
+                throw UnimplementedOpcodeException.INSTANCE;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xFE: INC/DEC byte ptr [X].
+     */
+    private void opcodeFE() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case 0: // INC
+                m_indirect.setMem8(inc8(m_indirect.getMem8()));
+                break;
+            case 1: // DEC
+                m_indirect.setMem8(dec8(m_indirect.getMem8()));
+                break;
+            case 2:
+            case 3:
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+                // invalid opcodes
+                throw InvalidOpcodeException.INSTANCE;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Implements opcode 0xFF: INC/DEC/CALL/JMP/PUSH word ptr [X].
+     */
+    private void opcodeFF() throws CpuException, MemoryException {
+        m_indirect.reset();
+        switch (m_indirect.getRegIndex()) {
+            case 0: // INC
+                m_indirect.setMem16(inc16(m_indirect.getMem16()));
+                break;
+            case 1: // DEC
+                m_indirect.setMem16(dec16(m_indirect.getMem16()));
                 break;
+            case 2: // CALL near
+                callNear(m_indirect.getMem16());
+                break;
+            case 3: // CALL far
+                {
+                    if (!m_indirect.hasMemAddress()) {
+                        throw InvalidOpcodeException.INSTANCE;
+                    }
+
+                    short segment = m_indirect.getMemSegment();
+                    short offset = m_indirect.getMemOffset();
+                    short newIP = m_memory.readWord(segment, offset);
+                    short newCS = m_memory.readWord(segment,
+                        (short)(offset + 2));
+                    callFar(newCS, newIP);
+                }
+                break;
+            case 4: // JMP near
+                // FIXME: JMP SP bug ?
+                m_state.setIP(m_indirect.getMem16());
+                break;
+            case 5: // JMP far
+                {
+                    if (!m_indirect.hasMemAddress()) {
+                        throw InvalidOpcodeException.INSTANCE;
+                    }
+
+                    short segment = m_indirect.getMemSegment();
+                    short offset = m_indirect.getMemOffset();
+                    short newIP = m_memory.readWord(segment, offset);
+                    short newCS = m_memory.readWord(segment,
+                        (short)(offset + 2));
+                    m_state.setCS(newCS);
+                    m_state.setIP(newIP);
+                }
+                break;
+            case 6: // PUSH
+                push(m_indirect.getMem16());
+                break;
+            case 7: // invalid opcode
+                throw InvalidOpcodeException.INSTANCE;
             default:
                 throw new RuntimeException();
         }
     }
 
+    /**
+     * Implements a conditional short jump opcode.
+     * @param condition  Whether or not the jump should be taken.
+     */
+    private void jumpShortIf(boolean condition) throws MemoryException {
+        byte offset = m_fetcher.nextByte();
+        if (condition) {
+            m_state.setIP((short)(m_state.getIP() + offset));
+        }
+    }
+
     private void push(short value) throws MemoryException {
         m_state.setSP((short)(m_state.getSP() - 2));
-        RealModeAddress stackPtr = new RealModeAddress(
-            m_state.getSS(), m_state.getSP());
-        m_memory.writeWord(stackPtr, value);
+        m_memory.writeWord(m_state.getSS(), m_state.getSP(), value);
     }
 
     private short pop() throws MemoryException {
-        RealModeAddress stackPtr = new RealModeAddress(
-            m_state.getSS(), m_state.getSP());
-        short value = m_memory.readWord(stackPtr);
+        short value = m_memory.readWord(m_state.getSS(), m_state.getSP());
         m_state.setSP((short)(m_state.getSP() + 2));
         return value;
     }	
@@ -1442,9 +1393,8 @@ public class Cpu {
      * @param value  Result of an 8bit operation.
      */
     private void updateFlags8(short value) {
-        m_state.setCarryFlag((value & 0xFF00) != 0);
         // TODO: update overflow flag
-        updateFlagsNoCarryOverflow8((byte)value);
+        m_state.updateFlags(value, 0xFF);
     }
 
     /**
@@ -1452,9 +1402,8 @@ public class Cpu {
      * @param value  Result of a 16bit operation.
      */
     private void updateFlags16(int value) {
-        m_state.setCarryFlag((value & 0xFFFF0000) != 0);
         // TODO: update overflow flag
-        updateFlagsNoCarryOverflow16((short)value);
+        m_state.updateFlags(value, 0xFFFF);
     }
 
     /**
@@ -1464,9 +1413,7 @@ public class Cpu {
      */
     private void updateFlagsNoCarryOverflow8(byte value) {
         // TODO: update aux flag		
-        m_state.setParityFlag(getParity(value));
-        m_state.setSignFlag((value & 0x80) != 0);
-        m_state.setZeroFlag(value == 0);		
+        m_state.updateFlagsNoCarry(value, 0xFF);
     }
 
     /**
@@ -1475,11 +1422,8 @@ public class Cpu {
      * @param value  Result of a 16bit operation.
      */
     private void updateFlagsNoCarryOverflow16(short value) {
-        byte byteValue = (byte)value;
         // TODO: update aux flag		
-        m_state.setParityFlag(getParity(byteValue));
-        m_state.setSignFlag((value & 0x8000) != 0);
-        m_state.setZeroFlag(value == 0);
+        m_state.updateFlagsNoCarry(value, 0xFFFF);
     }	
 
     /**
@@ -1509,10 +1453,9 @@ public class Cpu {
      * Note: does not modify the carry flag.
      */
     private byte inc8(byte value) {
-        boolean oldCarry = m_state.getCarryFlag();
-        byte result = add8(value, (byte)1);
-        m_state.setCarryFlag(oldCarry);
-        return result;		
+        byte result = (byte)(value + 1);
+        updateFlagsNoCarryOverflow8(result);
+        return result;
     }
 
     /**
@@ -1520,10 +1463,9 @@ public class Cpu {
      * Note: does not modify the carry flag.
      */
     private short inc16(short value) {
-        boolean oldCarry = m_state.getCarryFlag();
-        short result = add16(value, (short)1);
-        m_state.setCarryFlag(oldCarry);
-        return result;		
+        short result = (short)(value + 1);
+        updateFlagsNoCarryOverflow16(result);
+        return result;
     }
 
     /**
@@ -1531,10 +1473,9 @@ public class Cpu {
      * Note: does not modify the carry flag.
      */
     private byte dec8(byte value) {
-        boolean oldCarry = m_state.getCarryFlag();
-        byte result = sub8(value, (byte)1);
-        m_state.setCarryFlag(oldCarry);
-        return result;		
+        byte result = (byte)(value - 1);
+        updateFlagsNoCarryOverflow8(result);
+        return result;
     }
 
     /**
@@ -1542,10 +1483,9 @@ public class Cpu {
      * Note: does not modify the carry flag.
      */
     private short dec16(short value) {
-        boolean oldCarry = m_state.getCarryFlag();
-        short result = sub16(value, (short)1);
-        m_state.setCarryFlag(oldCarry);
-        return result;		
+        short result = (short)(value - 1);
+        updateFlagsNoCarryOverflow16(result);
+        return result;
     }
 
     /**
@@ -1723,11 +1663,8 @@ public class Cpu {
      * @throws MemoryException
      */
     private void movsb() throws MemoryException {
-        RealModeAddress src =
-            new RealModeAddress(m_state.getDS(), m_state.getSI());
-        RealModeAddress dst =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        m_memory.writeByte(dst, m_memory.readByte(src));
+        m_memory.writeByte(m_state.getES(), m_state.getDI(),
+            m_memory.readByte(m_state.getDS(), m_state.getSI()));
 
         byte diff = (m_state.getDirectionFlag() ? (byte)-1 : (byte)1); 
         m_state.setSI((short)(m_state.getSI() + diff));
@@ -1739,11 +1676,8 @@ public class Cpu {
      * @throws MemoryException
      */
     private void movsw() throws MemoryException {
-        RealModeAddress src = 
-            new RealModeAddress(m_state.getDS(), m_state.getSI());
-        RealModeAddress dst =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        m_memory.writeWord(dst, m_memory.readWord(src));
+        m_memory.writeWord(m_state.getES(), m_state.getDI(),
+            m_memory.readWord(m_state.getDS(), m_state.getSI()));
 
         byte diff = (m_state.getDirectionFlag() ? (byte)-2 : (byte)2); 
         m_state.setSI((short)(m_state.getSI() + diff));
@@ -1755,11 +1689,8 @@ public class Cpu {
      * @throws MemoryException
      */
     private void cmpsb() throws MemoryException {
-        RealModeAddress address1 =
-            new RealModeAddress(m_state.getDS(), m_state.getSI());
-        RealModeAddress address2 =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        sub8(m_memory.readByte(address1), m_memory.readByte(address2));		
+        sub8(m_memory.readByte(m_state.getDS(), m_state.getSI()),
+            m_memory.readByte(m_state.getES(), m_state.getDI()));		
 
         byte diff = (m_state.getDirectionFlag() ? (byte)-1 : (byte)1); 
         m_state.setSI((short)(m_state.getSI() + diff));
@@ -1771,11 +1702,8 @@ public class Cpu {
      * @throws MemoryException
      */
     private void cmpsw() throws MemoryException {
-        RealModeAddress address1 = 
-            new RealModeAddress(m_state.getDS(), m_state.getSI());
-        RealModeAddress address2 =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        sub16(m_memory.readWord(address1), m_memory.readWord(address2));		
+        sub16(m_memory.readWord(m_state.getDS(), m_state.getSI()),
+            m_memory.readWord(m_state.getES(), m_state.getDI()));		
 
         byte diff = (m_state.getDirectionFlag() ? (byte)-2 : (byte)2); 
         m_state.setSI((short)(m_state.getSI() + diff));
@@ -1787,9 +1715,7 @@ public class Cpu {
      * @throws MemoryException
      */
     private void stosb() throws MemoryException {
-        RealModeAddress address =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        m_memory.writeByte(address, m_state.getAL());
+        m_memory.writeByte(m_state.getES(), m_state.getDI(), m_state.getAL());
         byte diff = (m_state.getDirectionFlag() ? (byte)-1 : (byte)1); 
         m_state.setDI((short)(m_state.getDI() + diff));
     }
@@ -1799,9 +1725,7 @@ public class Cpu {
      * @throws MemoryException
      */
     private void stosw() throws MemoryException {
-        RealModeAddress address =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        m_memory.writeWord(address, m_state.getAX());
+        m_memory.writeWord(m_state.getES(), m_state.getDI(), m_state.getAX());
         byte diff = (m_state.getDirectionFlag() ? (byte)-2 : (byte)2); 
         m_state.setDI((short)(m_state.getDI() + diff));
     }
@@ -1811,13 +1735,9 @@ public class Cpu {
      * @throws MemoryException
      */
     private void stosdw() throws MemoryException {
-        RealModeAddress address1 =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        m_memory.writeWord(address1, m_state.getAX());
-
-        RealModeAddress address2 =
-            new RealModeAddress(m_state.getES(), (short)(m_state.getDI() + 2));
-        m_memory.writeWord(address2, m_state.getDX());
+        m_memory.writeWord(m_state.getES(), m_state.getDI(), m_state.getAX());
+        m_memory.writeWord(m_state.getES(), (short)(m_state.getDI() + 2),
+            m_state.getDX());
 
         byte diff = (m_state.getDirectionFlag() ? (byte)-4 : (byte)4); 
         m_state.setDI((short)(m_state.getDI() + diff));
@@ -1828,9 +1748,7 @@ public class Cpu {
      * @throws MemoryException
      */
     private void lodsb() throws MemoryException {
-        RealModeAddress address =
-            new RealModeAddress(m_state.getDS(), m_state.getSI());
-        m_state.setAL(m_memory.readByte(address));
+        m_state.setAL(m_memory.readByte(m_state.getDS(), m_state.getSI()));
         byte diff = (m_state.getDirectionFlag() ? (byte)-1 : (byte)1); 
         m_state.setSI((short)(m_state.getSI() + diff));		
     }
@@ -1840,9 +1758,7 @@ public class Cpu {
      * @throws MemoryException
      */
     private void lodsw() throws MemoryException {
-        RealModeAddress address =
-            new RealModeAddress(m_state.getDS(), m_state.getSI());
-        m_state.setAX(m_memory.readWord(address));
+        m_state.setAX(m_memory.readWord(m_state.getDS(), m_state.getSI()));
         byte diff = (m_state.getDirectionFlag() ? (byte)-2 : (byte)2); 
         m_state.setSI((short)(m_state.getSI() + diff));
     }
@@ -1852,9 +1768,7 @@ public class Cpu {
      * @throws MemoryException
      */
     private void scasb() throws MemoryException {
-        RealModeAddress address =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        sub8(m_state.getAL(), m_memory.readByte(address));
+        sub8(m_state.getAL(), m_memory.readByte(m_state.getES(), m_state.getDI()));
         byte diff = (m_state.getDirectionFlag() ? (byte)-1 : (byte)1); 
         m_state.setDI((short)(m_state.getDI() + diff));
     }
@@ -1864,9 +1778,7 @@ public class Cpu {
      * @throws MemoryException
      */
     private void scasw() throws MemoryException {
-        RealModeAddress address =
-            new RealModeAddress(m_state.getES(), m_state.getDI());
-        sub16(m_state.getAX(), m_memory.readWord(address));
+        sub16(m_state.getAX(), m_memory.readWord(m_state.getES(), m_state.getDI()));
         byte diff = (m_state.getDirectionFlag() ? (byte)-2 : (byte)2); 
         m_state.setDI((short)(m_state.getDI() + diff));
     }
@@ -2137,8 +2049,24 @@ public class Cpu {
         if (bombCount != 0) {
             m_state.setBomb1Count((byte)(bombCount - 1));
 
-            for (int i = 0; i < 64; ++i) {
-                stosdw();
+            // write the whole bomb at once if all of it may be written,
+            // otherwise write it dword by dword (as it may end in a fault)
+            for (int i = 0; i < BOMB_SIZE; i += 4) {
+                m_bomb[i] = m_state.getAL();
+                m_bomb[i + 1] = m_state.getAH();
+                m_bomb[i + 2] = m_state.getDL();
+                m_bomb[i + 3] = m_state.getDH();
+            }
+            int diff = (m_state.getDirectionFlag() ? -BOMB_SIZE : BOMB_SIZE);
+            short start = (m_state.getDirectionFlag() ?
+                (short)(m_state.getDI() - (BOMB_SIZE - 4)) : m_state.getDI());
+
+            if (m_memory.writeBlock(m_state.getES(), start, m_bomb, BOMB_SIZE)) {
+                m_state.setDI((short)(m_state.getDI() + diff));
+            } else {
+                for (int i = 0; i < BOMB_SIZE / 4; ++i) {
+                    stosdw();
+                }
             }
         }
     }
@@ -2155,74 +2083,98 @@ public class Cpu {
         if (bombCount != 0) {
             m_state.setBomb2Count((byte)(bombCount - 1));
 
-            for (int i = 0; i <= 0xFFFF; ++i) {
-                int diff = (m_state.getDirectionFlag() ? -i : i);
+            // search the raw segment if all of it may be read, otherwise
+            // search it word by word (as the search may end in a fault)
+            if (m_segment == null) {
+                m_segment = new byte[RealModeAddress.SEGMENT_SIZE + 3];
+            }
+            int offset = m_memory.readSegment(m_state.getES(), m_segment) ?
+                findInSegment() : findInMemory();
+
+            if (offset >= 0) {
+                // found!
+                m_memory.writeWord(m_state.getES(), (short)offset, m_state.getBX());
+                m_memory.writeWord(m_state.getES(), (short)(offset + 2), m_state.getCX());
+            }
+        }
+    }
 
-                RealModeAddress address1 = new RealModeAddress(
-                    m_state.getES(), (short)(m_state.getDI() + diff));
+    /**
+     * Searches ES for the first occurence of AX:DX starting at DI, in the
+     * direction of the direction flag, checking every access to the memory.
+     *
+     * @return the offset of the occurence, or -1 if not found.
+     * @throws MemoryException
+     */
+    private int findInMemory() throws MemoryException {
+        for (int i = 0; i <= 0xFFFF; ++i) {
+            int diff = (m_state.getDirectionFlag() ? -i : i);
 
-                if (m_memory.readWord(address1) == m_state.getAX()) {
-                    RealModeAddress address2 = new RealModeAddress(
-                        m_state.getES(), (short)(m_state.getDI() + diff + 2));
-                    if (m_memory.readWord(address2) == m_state.getDX()) {
-                        // found!
-                        m_memory.writeWord(address1, m_state.getBX());
-                        m_memory.writeWord(address2, m_state.getCX());
+            short offset1 = (short)(m_state.getDI() + diff);
 
-                        break;
-                    }
+            if (m_memory.readWord(m_state.getES(), offset1) == m_state.getAX()) {
+                short offset2 = (short)(m_state.getDI() + diff + 2);
+                if (m_memory.readWord(m_state.getES(), offset2) == m_state.getDX()) {
+                    return Unsigned.unsignedShort(offset1);
                 }
             }
         }
+        return -1;
     }
 
     /**
-     * Returns true iff the given byte's bit parity is EVEN.
-     * @param value  Value for which bit parity will be tested.
-     * @return true iff the given byte's bit parity is EVEN.
+     * Same as findInMemory(), over ES as read by readSegment().
+     * Positions are matched by their first byte, and then by all 4 bytes at
+     * once.
+     *
+     * @return the offset of the occurence, or -1 if not found.
      */
-    private boolean getParity(byte value) {
-        return PARITY_TABLE[Unsigned.unsignedByte(value)];
+    private int findInSegment() {
+        final byte[] segment = m_segment;
+        final int size = RealModeAddress.SEGMENT_SIZE;
+        // the pattern may wrap around the end of the segment
+        System.arraycopy(segment, 0, segment, size, 3);
+
+        byte first = (byte)m_state.getAX();
+        int pattern = Unsigned.unsignedShort(m_state.getAX()) |
+            (m_state.getDX() << 16);
+        int start = Unsigned.unsignedShort(m_state.getDI());
+
+        if (!m_state.getDirectionFlag()) {
+            for (int offset = start; offset < size; ++offset) {
+                if ((segment[offset] == first) && (getInt(segment, offset) == pattern)) {
+                    return offset;
+                }
+            }
+            for (int offset = 0; offset < start; ++offset) {
+                if ((segment[offset] == first) && (getInt(segment, offset) == pattern)) {
+                    return offset;
+                }
+            }
+        } else {
+            for (int offset = start; offset >= 0; --offset) {
+                if ((segment[offset] == first) && (getInt(segment, offset) == pattern)) {
+                    return offset;
+                }
+            }
+            for (int offset = size - 1; offset > start; --offset) {
+                if ((segment[offset] == first) && (getInt(segment, offset) == pattern)) {
+                    return offset;
+                }
+            }
+        }
+        return -1;
     }
 
     /**
-     * Parity table implementation.
-     * An array memeber of 'true' means the bit parity for the given index is EVEN.
+     * @return the little-endian 4 bytes at the given index of an array.
      */
-    private static final boolean PARITY_TABLE[] = {
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true,
-        true, false, false, true, false, true, true, false,
-        true, false, false, true, false, true, true, false,
-        false, true, true, false, true, false, false, true
-    };
+    private static int getInt(byte[] bytes, int index) {
+        return Unsigned.unsignedByte(bytes[index]) |
+            (Unsigned.unsignedByte(bytes[index + 1]) << 8) |
+            (Unsigned.unsignedByte(bytes[index + 2]) << 16) |
+            (bytes[index + 3] << 24);
+    }
 
     /** Current state of registers & flags */
     private final CpuState m_state;
@@ -2238,4 +2190,13 @@ public class Cpu {
 
     /** Used to decode indirect-addressing opcodes */
     private final IndirectAddressingDecoder m_indirect;
+
+    /** Buffer used by INT 0x87 to search a whole segment (allocated on use) */
+    private byte[] m_segment;
+
+    /** Size of the bomb written by INT 0x86 (64 times AX:DX) */
+    private static final int BOMB_SIZE = 256;
+
+    /** Buffer used by INT 0x86 to write the bomb */
+    private final byte[] m_bomb = new byte[BOMB_SIZE];
 }
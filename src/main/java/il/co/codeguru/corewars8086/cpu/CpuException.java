@@ -7,4 +7,12 @@ package il.co.codeguru.corewars8086.cpu;
  */
 public abstract class CpuException extends Exception {
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor. The stack trace is not filled in, as these exceptions only
+	 * signal that a warrior has died (so none of them should be costly).
+	 */
+	protected CpuException() {
+		super(null, null, false, false);
+	}
 }
@@ -2,179 +2,326 @@ package il.co.codeguru.corewars8086.cpu;
 
 import il.co.codeguru.corewars8086.utils.Unsigned;
 
+import java.util.Arrays;
+
 /**
  * Wrapper class for CPU state (registers & flags). 
+ *
+ * All the registers are kept in a single array, so a register may be accessed
+ * by its index without switching on it, and the whole state may be copied at
+ * once (e.g. to snapshot it).
  * 
  * @author DL
  */
 public class CpuState {
 
+    /** Indices of the 16bit registers, by the CPU's internal register indexing */
+    public static final int AX = 0;
+    public static final int CX = 1;
+    public static final int DX = 2;
+    public static final int BX = 3;
+    public static final int SP = 4;
+    public static final int BP = 5;
+    public static final int SI = 6;
+    public static final int DI = 7;
+
+    /** Indices of the segment registers, by the CPU's internal register indexing */
+    public static final int ES = 8;
+    public static final int CS = 9;
+    public static final int SS = 10;
+    public static final int DS = 11;
+
+    /** Indices of the other (and virtual) registers */
+    public static final int IP = 12;
+    public static final int FLAGS = 13;
+    public static final int ENERGY = 14;
+    public static final int BOMB1_COUNT = 15;
+    public static final int BOMB2_COUNT = 16;
+
+    /** Total number of registers */
+    public static final int NUM_REGS = 17;
+
+    /**
+     * Constructor, with all the registers cleared.
+     */
+    public CpuState() {
+    }
+
+    /**
+     * Copy constructor.
+     * @param other   The state to copy.
+     */
+    public CpuState(CpuState other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Copies all the registers of another state into this one.
+     * @param other   The state to copy.
+     */
+    public void copyFrom(CpuState other) {
+        System.arraycopy(other.m_regs, 0, m_regs, 0, NUM_REGS);
+        m_lazyFlags = other.m_lazyFlags;
+        m_lazyResult = other.m_lazyResult;
+        m_lazyWidthMask = other.m_lazyWidthMask;
+    }
+
+    /**
+     * Checks whether or not another state holds the same values in all the
+     * registers (regardless of which flags are yet to be computed).
+     * @param other   The state to compare with.
+     * @return whether or not the states are the same.
+     */
+    public boolean isSameAs(CpuState other) {
+        computeLazyFlags();
+        other.computeLazyFlags();
+        return Arrays.equals(m_regs, other.m_regs);
+    }
+
+    /**
+     * Accessors for the registers by their CPU's internal register index.
+     * The 8bit registers are indexed AL,CL,DL,BL,AH,CH,DH,BH; the 16bit
+     * registers AX,CX,DX,BX,SP,BP,SI,DI; and the segment registers
+     * ES,CS,SS,DS (only the lower 2 bits of the index are used).
+     */
+    public byte getReg8(int index) {
+        return (byte)(m_regs[index & 0x03] >> ((index & 0x04) << 1));
+    }
+    public void setReg8(int index, byte value) {
+        int shift = (index & 0x04) << 1;
+        m_regs[index & 0x03] = (short)((m_regs[index & 0x03] & ~(0xFF << shift)) |
+            (Unsigned.unsignedByte(value) << shift));
+    }
+    public short getReg16(int index) {
+        return m_regs[index & 0x07];
+    }
+    public void setReg16(int index, short value) {
+        m_regs[index & 0x07] = value;
+    }
+    public short getSeg(int index) {
+        return m_regs[ES + (index & 0x03)];
+    }
+    public void setSeg(int index, short value) {
+        m_regs[ES + (index & 0x03)] = value;
+    }
+
     /** Accessors for the 16bit registers */
     public short getAX() {
-        return m_ax;
+        return m_regs[AX];
     }
     public short getBX() {
-        return m_bx;
+        return m_regs[BX];
     }
     public short getCX() {
-        return m_cx;
+        return m_regs[CX];
     }
     public short getDX() {
-        return m_dx;
+        return m_regs[DX];
     }
     public short getDS() {
-        return m_ds;
+        return m_regs[DS];
     }
     public short getES() {
-        return m_es;
+        return m_regs[ES];
     }
     public short getSI() {
-        return m_si;
+        return m_regs[SI];
     }
     public short getDI() {
-        return m_di;
+        return m_regs[DI];
     }
     public short getSS() {
-        return m_ss;
+        return m_regs[SS];
     }
     public short getBP() {
-        return m_bp;
+        return m_regs[BP];
     }
     public short getSP() {
-        return m_sp;
+        return m_regs[SP];
     }
     public short getCS() {
-        return m_cs;
+        return m_regs[CS];
     }
     public short getIP() {
-        return m_ip;
+        return m_regs[IP];
     }
     public short getFlags() {
-        return m_flags;
+        computeLazyFlags();
+        return m_regs[FLAGS];
     }	
 
     public void setAX(short value) {
-        m_ax = value;
+        m_regs[AX] = value;
     }
     public void setBX(short value) {
-        m_bx = value;
+        m_regs[BX] = value;
     }
     public void setCX(short value) {
-        m_cx = value;
+        m_regs[CX] = value;
     }
     public void setDX(short value) {
-        m_dx = value;
+        m_regs[DX] = value;
     }
     public void setDS(short value) {
-        m_ds = value;
+        m_regs[DS] = value;
     }
     public void setES(short value) {
-        m_es = value;
+        m_regs[ES] = value;
     }
     public void setSI(short value) {
-        m_si = value;
+        m_regs[SI] = value;
     }
     public void setDI(short value) {
-        m_di = value;
+        m_regs[DI] = value;
     }
     public void setSS(short value) {
-        m_ss = value;
+        m_regs[SS] = value;
     }
     public void setBP(short value) {
-        m_bp = value;
+        m_regs[BP] = value;
     }
     public void setSP(short value) {
-        m_sp = value;
+        m_regs[SP] = value;
     }
     public void setCS(short value) {
-        m_cs = value;
+        m_regs[CS] = value;
     }
     public void setIP(short value) {
-        m_ip = value;
+        m_regs[IP] = value;
     }
     public void setFlags(short value) {
-        m_flags = value;
+        m_lazyFlags = 0;
+        m_regs[FLAGS] = value;
+    }
+
+    /**
+     * Updates the Carry, Parity, Sign & Zero flags after an arithmetic
+     * operation.
+     *
+     * The flags are only computed from the result once they are read (most
+     * are overwritten by the next operation before that), so this merely
+     * records the result.
+     *
+     * @param result     Result of the operation, before truncating it to its
+     *                   width (so the Carry flag is set iff any bit above the
+     *                   width is set).
+     * @param widthMask  0xFF for an 8bit operation, 0xFFFF for a 16bit one.
+     */
+    void updateFlags(int result, int widthMask) {
+        m_lazyFlags = LAZY_FLAGS;
+        m_lazyResult = result;
+        m_lazyWidthMask = widthMask;
+    }
+
+    /**
+     * Same as updateFlags(), except that the Carry flag is not modified.
+     */
+    void updateFlagsNoCarry(int result, int widthMask) {
+        if ((m_lazyFlags & FLAGS_MASK_CARRY) != 0) {
+            // the previous operation's carry must outlive its result
+            setCarryFlag(getCarryFlag());
+        }
+        m_lazyFlags = LAZY_FLAGS & ~FLAGS_MASK_CARRY;
+        m_lazyResult = result;
+        m_lazyWidthMask = widthMask;
+    }
+
+    /**
+     * Computes the flags which are yet to be computed from the last
+     * arithmetic operation into the flags register.
+     */
+    private void computeLazyFlags() {
+        if (m_lazyFlags == 0) {
+            return;
+        }
+        int flags = 0;
+        if (getCarryFlag()) {
+            flags |= FLAGS_MASK_CARRY;
+        }
+        if (getParityFlag()) {
+            flags |= FLAGS_MASK_PARITY;
+        }
+        if (getZeroFlag()) {
+            flags |= FLAGS_MASK_ZERO;
+        }
+        if (getSignFlag()) {
+            flags |= FLAGS_MASK_SIGN;
+        }
+        m_regs[FLAGS] = (short)((m_regs[FLAGS] & ~m_lazyFlags) | (flags & m_lazyFlags));
+        m_lazyFlags = 0;
     }
 
     /** Accessors for the 8bit registers */
     public byte getAL() {
-        return (byte)m_ax;
+        return (byte)m_regs[AX];
     }	
     public byte getBL() {
-        return (byte)m_bx;
+        return (byte)m_regs[BX];
     }	
     public byte getCL() {
-        return (byte)m_cx;
+        return (byte)m_regs[CX];
     }	
     public byte getDL() {
-        return (byte)m_dx;
+        return (byte)m_regs[DX];
     }	
     public byte getAH() {
-        return (byte)(m_ax >> 8);
+        return (byte)(m_regs[AX] >> 8);
     }	
     public byte getBH() {
-        return (byte)(m_bx >> 8);
+        return (byte)(m_regs[BX] >> 8);
     }	
     public byte getCH() {
-        return (byte)(m_cx >> 8);
+        return (byte)(m_regs[CX] >> 8);
     }	
     public byte getDH() {
-        return (byte)(m_dx >> 8);
+        return (byte)(m_regs[DX] >> 8);
     }	
 
     public void setAL(byte value) {
-        m_ax &= 0xFF00;
-        m_ax |= Unsigned.unsignedByte(value);
+        m_regs[AX] = (short)((m_regs[AX] & 0xFF00) | Unsigned.unsignedByte(value));
     }
     public void setBL(byte value) {
-        m_bx &= 0xFF00;
-        m_bx |= Unsigned.unsignedByte(value);
+        m_regs[BX] = (short)((m_regs[BX] & 0xFF00) | Unsigned.unsignedByte(value));
     }
     public void setCL(byte value) {
-        m_cx &= 0xFF00;
-        m_cx |= Unsigned.unsignedByte(value);
+        m_regs[CX] = (short)((m_regs[CX] & 0xFF00) | Unsigned.unsignedByte(value));
     }
     public void setDL(byte value) {
-        m_dx &= 0xFF00;
-        m_dx |= Unsigned.unsignedByte(value);
+        m_regs[DX] = (short)((m_regs[DX] & 0xFF00) | Unsigned.unsignedByte(value));
     }
     public void setAH(byte value) {
-        m_ax &= 0x00FF;
-        m_ax |= (Unsigned.unsignedByte(value) << 8);
+        m_regs[AX] = (short)((m_regs[AX] & 0x00FF) | (Unsigned.unsignedByte(value) << 8));
     }
     public void setBH(byte value) {
-        m_bx &= 0x00FF;
-        m_bx |= (Unsigned.unsignedByte(value) << 8);
+        m_regs[BX] = (short)((m_regs[BX] & 0x00FF) | (Unsigned.unsignedByte(value) << 8));
     }
     public void setCH(byte value) {
-        m_cx &= 0x00FF;
-        m_cx |= (Unsigned.unsignedByte(value) << 8);
+        m_regs[CX] = (short)((m_regs[CX] & 0x00FF) | (Unsigned.unsignedByte(value) << 8));
     }
     public void setDH(byte value) {
-        m_dx &= 0x00FF;
-        m_dx |= (Unsigned.unsignedByte(value) << 8);
+        m_regs[DX] = (short)((m_regs[DX] & 0x00FF) | (Unsigned.unsignedByte(value) << 8));
     }
 
     /** Accessors for the virtual Energy register. */
     public short getEnergy() {
-        return m_energy;
+        return m_regs[ENERGY];
     }
     public void setEnergy(short value) {
-        m_energy = value;
+        m_regs[ENERGY] = value;
     }
 
     /** Accessors for the virtual bomb count registers. */
     public byte getBomb1Count() {
-        return m_bomb1count;
+        return (byte)m_regs[BOMB1_COUNT];
     }
     public void setBomb1Count(byte value) {
-        m_bomb1count = value;
+        m_regs[BOMB1_COUNT] = value;
     }
     public byte getBomb2Count() {
-        return m_bomb2count;
+        return (byte)m_regs[BOMB2_COUNT];
     }
     public void setBomb2Count(byte value) {
-        m_bomb2count = value;
+        m_regs[BOMB2_COUNT] = value;
     }
 
     /**
@@ -182,31 +329,43 @@ public class CpuState {
      * @return whether or not the requested flags field is set.
      */
     public boolean getCarryFlag() {
-        return ((m_flags & FLAGS_MASK_CARRY) == FLAGS_MASK_CARRY);
+        if ((m_lazyFlags & FLAGS_MASK_CARRY) != 0) {
+            return (m_lazyResult & ~m_lazyWidthMask) != 0;
+        }
+        return ((m_regs[FLAGS] & FLAGS_MASK_CARRY) == FLAGS_MASK_CARRY);
     }
     public boolean getParityFlag() {
-        return ((m_flags & FLAGS_MASK_PARITY) == FLAGS_MASK_PARITY);
+        if ((m_lazyFlags & FLAGS_MASK_PARITY) != 0) {
+            return getParity(m_lazyResult);
+        }
+        return ((m_regs[FLAGS] & FLAGS_MASK_PARITY) == FLAGS_MASK_PARITY);
     }
     public boolean getAuxFlag() {
-        return ((m_flags & FLAGS_MASK_AUX) == FLAGS_MASK_AUX);
+        return ((m_regs[FLAGS] & FLAGS_MASK_AUX) == FLAGS_MASK_AUX);
     }
     public boolean getZeroFlag() {
-        return ((m_flags & FLAGS_MASK_ZERO) == FLAGS_MASK_ZERO);
+        if ((m_lazyFlags & FLAGS_MASK_ZERO) != 0) {
+            return (m_lazyResult & m_lazyWidthMask) == 0;
+        }
+        return ((m_regs[FLAGS] & FLAGS_MASK_ZERO) == FLAGS_MASK_ZERO);
     }
     public boolean getSignFlag() {
-        return ((m_flags & FLAGS_MASK_SIGN) == FLAGS_MASK_SIGN);
+        if ((m_lazyFlags & FLAGS_MASK_SIGN) != 0) {
+            return (m_lazyResult & ((m_lazyWidthMask >>> 1) + 1)) != 0;
+        }
+        return ((m_regs[FLAGS] & FLAGS_MASK_SIGN) == FLAGS_MASK_SIGN);
     }
     public boolean getTrapFlag() {
-        return ((m_flags & FLAGS_MASK_TRAP) == FLAGS_MASK_TRAP);
+        return ((m_regs[FLAGS] & FLAGS_MASK_TRAP) == FLAGS_MASK_TRAP);
     }
     public boolean getInterruptFlag() {
-        return ((m_flags & FLAGS_MASK_INTERRUPT) == FLAGS_MASK_INTERRUPT);
+        return ((m_regs[FLAGS] & FLAGS_MASK_INTERRUPT) == FLAGS_MASK_INTERRUPT);
     }
     public boolean getDirectionFlag() {
-        return ((m_flags & FLAGS_MASK_DIRECTION) == FLAGS_MASK_DIRECTION);
+        return ((m_regs[FLAGS] & FLAGS_MASK_DIRECTION) == FLAGS_MASK_DIRECTION);
     }
     public boolean getOverflowFlag() {
-        return ((m_flags & FLAGS_MASK_OVERFLOW) == FLAGS_MASK_OVERFLOW);
+        return ((m_regs[FLAGS] & FLAGS_MASK_OVERFLOW) == FLAGS_MASK_OVERFLOW);
     }
 
     /**
@@ -214,95 +373,89 @@ public class CpuState {
      * @param newValue whether or not the requested flags field should be set.
      */
     public void setCarryFlag(boolean newValue) {
+        m_lazyFlags &= ~FLAGS_MASK_CARRY;
         if (newValue) {
-            m_flags |= FLAGS_MASK_CARRY;
+            m_regs[FLAGS] |= FLAGS_MASK_CARRY;
         } else {
-            m_flags &= (~FLAGS_MASK_CARRY);
+            m_regs[FLAGS] &= (~FLAGS_MASK_CARRY);
         }
     }
     public void setParityFlag(boolean newValue) {
+        m_lazyFlags &= ~FLAGS_MASK_PARITY;
         if (newValue) {
-            m_flags |= FLAGS_MASK_PARITY;
+            m_regs[FLAGS] |= FLAGS_MASK_PARITY;
         } else {
-            m_flags &= (~FLAGS_MASK_PARITY);
+            m_regs[FLAGS] &= (~FLAGS_MASK_PARITY);
         }
     }
     public void setAuxFlag(boolean newValue) {
         if (newValue) {
-            m_flags |= FLAGS_MASK_AUX;
+            m_regs[FLAGS] |= FLAGS_MASK_AUX;
         } else {
-            m_flags &= (~FLAGS_MASK_AUX);
+            m_regs[FLAGS] &= (~FLAGS_MASK_AUX);
         }
     }
     public void setZeroFlag(boolean newValue) {
+        m_lazyFlags &= ~FLAGS_MASK_ZERO;
         if (newValue) {
-            m_flags |= FLAGS_MASK_ZERO;
+            m_regs[FLAGS] |= FLAGS_MASK_ZERO;
         } else {
-            m_flags &= (~FLAGS_MASK_ZERO);
+            m_regs[FLAGS] &= (~FLAGS_MASK_ZERO);
         }
     }
     public void setSignFlag(boolean newValue) {
+        m_lazyFlags &= ~FLAGS_MASK_SIGN;
         if (newValue) {
-            m_flags |= FLAGS_MASK_SIGN;
+            m_regs[FLAGS] |= FLAGS_MASK_SIGN;
         } else {
-            m_flags &= (~FLAGS_MASK_SIGN);
+            m_regs[FLAGS] &= (~FLAGS_MASK_SIGN);
         }
     }
     public void setTrapFlag(boolean newValue) {
         if (newValue) {
-            m_flags |= FLAGS_MASK_TRAP;
+            m_regs[FLAGS] |= FLAGS_MASK_TRAP;
         } else {
-            m_flags &= (~FLAGS_MASK_TRAP);
+            m_regs[FLAGS] &= (~FLAGS_MASK_TRAP);
         }
     }
     public void setInterruptFlag(boolean newValue) {
         if (newValue) {
-            m_flags |= FLAGS_MASK_INTERRUPT;
+            m_regs[FLAGS] |= FLAGS_MASK_INTERRUPT;
         } else {
-            m_flags &= (~FLAGS_MASK_INTERRUPT);
+            m_regs[FLAGS] &= (~FLAGS_MASK_INTERRUPT);
         }
     }
     public void setDirectionFlag(boolean newValue) {
         if (newValue) {
-            m_flags |= FLAGS_MASK_DIRECTION;
+            m_regs[FLAGS] |= FLAGS_MASK_DIRECTION;
         } else {
-            m_flags &= (~FLAGS_MASK_DIRECTION);
+            m_regs[FLAGS] &= (~FLAGS_MASK_DIRECTION);
         }
     }
     public void setOverflowFlag(boolean newValue) {
         if (newValue) {
-            m_flags |= FLAGS_MASK_OVERFLOW;
+            m_regs[FLAGS] |= FLAGS_MASK_OVERFLOW;
         } else {
-            m_flags &= (~FLAGS_MASK_OVERFLOW);
+            m_regs[FLAGS] &= (~FLAGS_MASK_OVERFLOW);
         }
     }
 
-    /** CPU registers */
-    private short m_ax;
-    private short m_bx;
-    private short m_cx;
-    private short m_dx;
-
-    private short m_ds;
-    private short m_es;
-    private short m_si;
-    private short m_di;
-
-    private short m_ss;
-    private short m_bp;
-    private short m_sp;
-
-    private short m_cs;
-    private short m_ip;
-    private short m_flags;
-
-    /** The virtual Energy register (used to calculate the warrior's speed). */
-    private short m_energy;
-
-    /** The virtual bomb count registers (used for INT 0x86, INT 0x87 opcodes). */
-    private byte m_bomb1count;
-    private byte m_bomb2count;
+    /**
+     * The registers, in the CPU's internal register indexing order (so the
+     * 16bit, 8bit and segment registers may be accessed by a single array
+     * access), followed by the virtual registers.
+     */
+    private final short[] m_regs = new short[NUM_REGS];
 
+    /**
+     * The flags which were updated by the last arithmetic operation, but are
+     * yet to be computed from its result.
+     */
+    private int m_lazyFlags;
+    /** Result of the last arithmetic operation */
+    private int m_lazyResult;
+    /** Width mask of the last arithmetic operation */
+    private int m_lazyWidthMask;
 
     /**
      * Masks for the various 'flags' fields.
@@ -315,5 +468,57 @@ public class CpuState {
     private static final short FLAGS_MASK_TRAP = 0x0100;
     private static final short FLAGS_MASK_INTERRUPT = 0x0200;
     private static final short FLAGS_MASK_DIRECTION = 0x0400;
-    private static final short FLAGS_MASK_OVERFLOW = 0x0800;	
+    private static final short FLAGS_MASK_OVERFLOW = 0x0800;
+
+    /** The flags which updateFlags() computes lazily */
+    private static final int LAZY_FLAGS =
+        FLAGS_MASK_CARRY | FLAGS_MASK_PARITY | FLAGS_MASK_SIGN | FLAGS_MASK_ZERO;
+
+    /**
+     * Returns true iff the given byte's bit parity is EVEN.
+     * @param value  Value for which bit parity will be tested.
+     * @return true iff the given byte's bit parity is EVEN.
+     */
+    private static boolean getParity(int value) {
+        return PARITY_TABLE[value & 0xFF];
+    }
+
+    /**
+     * Parity table implementation.
+     * An array memeber of 'true' means the bit parity for the given index is EVEN.
+     */
+    private static final boolean PARITY_TABLE[] = {
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true,
+        true, false, false, true, false, true, true, false,
+        true, false, false, true, false, true, true, false,
+        false, true, true, false, true, false, false, true
+    };
 }
\ No newline at end of file
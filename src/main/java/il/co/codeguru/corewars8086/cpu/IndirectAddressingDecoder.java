@@ -1,7 +1,6 @@
 package il.co.codeguru.corewars8086.cpu;
 
 import il.co.codeguru.corewars8086.memory.MemoryException;
-import il.co.codeguru.corewars8086.memory.RealModeAddress;
 import il.co.codeguru.corewars8086.memory.RealModeMemory;
 
 /**
@@ -38,7 +37,9 @@ public class IndirectAddressingDecoder {
 
         m_regIndex = 0;
         m_memIndex = 0;
-        m_memAddress = null;
+        m_hasMemAddress = false;
+        m_memSegment = 0;
+        m_memOffset = 0;
     }
 
     /**
@@ -53,24 +54,114 @@ public class IndirectAddressingDecoder {
         // I - indirect addressing indexing 
         byte modeByte = m_fetcher.nextByte();
 
-        byte mode = (byte)((modeByte >> 6) & 0x03);
         m_regIndex = (byte)((modeByte >> 3) & 0x07);		
         m_memIndex = (byte)(modeByte & 0x07);
 
-        // decode the opcode according to the indirect-addressing mode, and
-        // retrieve the address operand
-        switch (mode) {
-            case 0:
-                m_memAddress = getMode0Address();
+        // decode the address operand according to both the indirect-addressing
+        // mode and index (MM III), using a single switch
+        m_hasMemAddress = true;
+        switch (((modeByte >> 3) & 0x18) | m_memIndex) {
+            case 0x00: // [BX+SI]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_state.getSI()));
                 break;
-            case 1:
-                m_memAddress = getMode1Address();
+            case 0x01: // [BX+DI]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_state.getDI()));
                 break;
-            case 2:
-                m_memAddress = getMode2Address();
+            case 0x02: // [BP+SI]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_state.getSI()));
                 break;
-            case 3:			
-                m_memAddress = getMode3Address();
+            case 0x03: // [BP+DI]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_state.getDI()));
+                break;
+            case 0x04: // [SI]
+                setMemAddress(m_state.getDS(), m_state.getSI());
+                break;
+            case 0x05: // [DI]
+                setMemAddress(m_state.getDS(), m_state.getDI());
+                break;
+            case 0x06: // [imm16]
+                setMemAddress(m_state.getDS(), m_fetcher.nextWord());
+                break;
+            case 0x07: // [BX]
+                setMemAddress(m_state.getDS(), m_state.getBX());
+                break;
+            case 0x08: // [BX+SI+imm8]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_state.getSI() + m_fetcher.nextByte()));
+                break;
+            case 0x09: // [BX+DI+imm8]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_state.getDI() + m_fetcher.nextByte()));
+                break;
+            case 0x0A: // [BP+SI+imm8]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_state.getSI() + m_fetcher.nextByte()));
+                break;
+            case 0x0B: // [BP+DI+imm8]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_state.getDI() + m_fetcher.nextByte()));
+                break;
+            case 0x0C: // [SI+imm8]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getSI() + m_fetcher.nextByte()));
+                break;
+            case 0x0D: // [DI+imm8]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getDI() + m_fetcher.nextByte()));
+                break;
+            case 0x0E: // [BP+imm8]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_fetcher.nextByte()));
+                break;
+            case 0x0F: // [BX+imm8]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_fetcher.nextByte()));
+                break;
+            case 0x10: // [BX+SI+imm16]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_state.getSI() + m_fetcher.nextWord()));
+                break;
+            case 0x11: // [BX+DI+imm16]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_state.getDI() + m_fetcher.nextWord()));
+                break;
+            case 0x12: // [BP+SI+imm16]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_state.getSI() + m_fetcher.nextWord()));
+                break;
+            case 0x13: // [BP+DI+imm16]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_state.getDI() + m_fetcher.nextWord()));
+                break;
+            case 0x14: // [SI+imm16]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getSI() + m_fetcher.nextWord()));
+                break;
+            case 0x15: // [DI+imm16]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getDI() + m_fetcher.nextWord()));
+                break;
+            case 0x16: // [BP+imm16]
+                setMemAddress(m_state.getSS(),
+                    (short)(m_state.getBP() + m_fetcher.nextWord()));
+                break;
+            case 0x17: // [BX+imm16]
+                setMemAddress(m_state.getDS(),
+                    (short)(m_state.getBX() + m_fetcher.nextWord()));
+                break;
+            case 0x18: // register
+            case 0x19:
+            case 0x1A:
+            case 0x1B:
+            case 0x1C:
+            case 0x1D:
+            case 0x1E:
+            case 0x1F:
+                m_hasMemAddress = false;
                 break;
             default:
                 throw new RuntimeException();
@@ -85,11 +176,27 @@ public class IndirectAddressingDecoder {
     }
 
     /**
-     * @return The indirect memory operand's address (or null if the latter
-     *         refers to a register).
+     * @return whether or not the indirect operand refers to memory (as opposed
+     *         to a register).
+     */
+    public boolean hasMemAddress() {
+        return m_hasMemAddress;
+    }
+
+    /**
+     * @return The indirect memory operand's segment (meaningless if the
+     *         latter refers to a register).
      */
-    public RealModeAddress getMemAddress() {
-        return m_memAddress;
+    public short getMemSegment() {
+        return m_memSegment;
+    }
+
+    /**
+     * @return The indirect memory operand's offset (meaningless if the
+     *         latter refers to a register).
+     */
+    public short getMemOffset() {
+        return m_memOffset;
     }
 
     /**
@@ -107,8 +214,8 @@ public class IndirectAddressingDecoder {
      * @return Indirect address (or register) 8bit value. 
      */
     public byte getMem8() throws MemoryException {
-        if (m_memAddress != null) {
-            return m_memory.readByte(m_memAddress);
+        if (m_hasMemAddress) {
+            return m_memory.readByte(m_memSegment, m_memOffset);
         }
         return m_regs.getReg8(m_memIndex);
     }
@@ -137,8 +244,8 @@ public class IndirectAddressingDecoder {
      * @return Indirect address (or register) 16bit value. 
      */
     public short getMem16() throws MemoryException {
-        if (m_memAddress != null) {
-            return m_memory.readWord(m_memAddress);
+        if (m_hasMemAddress) {
+            return m_memory.readWord(m_memSegment, m_memOffset);
         }
         return m_regs.getReg16(m_memIndex);
     }
@@ -158,8 +265,8 @@ public class IndirectAddressingDecoder {
      * @param value    Value to set. 
      */
     public void setMem8(byte value) throws MemoryException {
-        if (m_memAddress != null) {
-            m_memory.writeByte(m_memAddress, value);
+        if (m_hasMemAddress) {
+            m_memory.writeByte(m_memSegment, m_memOffset, value);
         } else {
             m_regs.setReg8(m_memIndex, value);
         }
@@ -189,128 +296,21 @@ public class IndirectAddressingDecoder {
      * @param value    Value to set. 
      */
     public void setMem16(short value) throws MemoryException {
-        if (m_memAddress != null) {
-            m_memory.writeWord(m_memAddress, value);
+        if (m_hasMemAddress) {
+            m_memory.writeWord(m_memSegment, m_memOffset, value);
         } else {
             m_regs.setReg16(m_memIndex, value);
         }
     }
 
     /**
-     * Decodes the indirect-memory operand corresponding to mode #0.
-     * @return the real-mode address to which the indirect-memory operand
-     *         refers to.
-     * @throws MemoryException on any error while reading from memory.
-     */
-    private RealModeAddress getMode0Address() throws MemoryException {
-        switch (m_memIndex) {
-            case 0:
-                return new RealModeAddress(
-                    m_state.getDS(), (short)(m_state.getBX() + m_state.getSI()));
-            case 1:
-                return new RealModeAddress(
-                    m_state.getDS(), (short)(m_state.getBX() + m_state.getDI()));
-            case 2:
-                return new RealModeAddress(
-                    m_state.getSS(), (short)(m_state.getBP() + m_state.getSI()));
-            case 3:
-                return new RealModeAddress(
-                    m_state.getSS(), (short)(m_state.getBP() + m_state.getDI()));
-            case 4:
-                return new RealModeAddress(m_state.getDS(), m_state.getSI());
-            case 5:
-                return new RealModeAddress(m_state.getDS(), m_state.getDI());
-            case 6:
-                return new RealModeAddress(m_state.getDS(), m_fetcher.nextWord());
-            case 7:
-                return new RealModeAddress(m_state.getDS(), m_state.getBX());
-            default:
-                throw new RuntimeException();			
-        }
-    }
-
-    /**
-     * Decodes the indirect-memory operand corresponding to mode #1.
-     * @return the real-mode address to which the indirect-memory operand
-     *         refers to.
-     * @throws MemoryException on any error while reading from memory.
-     */
-    private RealModeAddress getMode1Address() throws MemoryException {
-        switch (m_memIndex) {
-            case 0:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getBX() + m_state.getSI() + m_fetcher.nextByte()));
-            case 1:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getBX() + m_state.getDI() + m_fetcher.nextByte()));
-            case 2:
-                return new RealModeAddress(m_state.getSS(),
-                    (short)(m_state.getBP() + m_state.getSI() + m_fetcher.nextByte()));
-            case 3:
-                return new RealModeAddress(m_state.getSS(),
-                    (short)(m_state.getBP() + m_state.getDI() + m_fetcher.nextByte()));
-            case 4:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getSI() + m_fetcher.nextByte()));
-            case 5:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getDI() + m_fetcher.nextByte()));
-            case 6:
-                return new RealModeAddress(m_state.getSS(),
-                    (short)(m_state.getBP() + m_fetcher.nextByte()));
-            case 7:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getBX() + m_fetcher.nextByte()));
-            default:
-                throw new RuntimeException();			
-        }
-    }
-
-    /**
-     * Decodes the indirect-memory operand corresponding to mode #2.
-     * @return the real-mode address to which the indirect-memory operand
-     *         refers to.
-     * @throws MemoryException on any error while reading from memory.
-     */
-    private RealModeAddress getMode2Address() throws MemoryException {
-        switch (m_memIndex) {
-            case 0:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getBX() + m_state.getSI() + m_fetcher.nextWord()));
-            case 1:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getBX() + m_state.getDI() + m_fetcher.nextWord()));
-            case 2:
-                return new RealModeAddress(m_state.getSS(),
-                    (short)(m_state.getBP() + m_state.getSI() + m_fetcher.nextWord()));
-            case 3:
-                return new RealModeAddress(m_state.getSS(),
-                    (short)(m_state.getBP() + m_state.getDI() + m_fetcher.nextWord()));
-            case 4:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getSI() + m_fetcher.nextWord()));
-            case 5:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getDI() + m_fetcher.nextWord()));
-            case 6:
-                return new RealModeAddress(m_state.getSS(),
-                    (short)(m_state.getBP() + m_fetcher.nextWord()));
-            case 7:
-                return new RealModeAddress(m_state.getDS(),
-                    (short)(m_state.getBX() + m_fetcher.nextWord()));
-            default:
-                throw new RuntimeException();			
-        }
-    }
-
-    /**
-     * Decodes the indirect-memory operand corresponding to mode #3.
-     * Since in this mode the indirect-memory operand actually referes to one
-     * of the registers, the method simply returns 'null'.
-     * @return null (meaning the indirect operand refers to a register).
+     * Sets the real-mode address to which the indirect-memory operand refers.
+     * @param segment    16bit Real-mode segment.
+     * @param offset     16bit Real-mode offset.
      */
-    private RealModeAddress getMode3Address() {
-        return null;
+    private void setMemAddress(short segment, short offset) {
+        m_memSegment = segment;
+        m_memOffset = offset;
     }
 
     /** CPU registers */
@@ -327,5 +327,7 @@ public class IndirectAddressingDecoder {
 
     private byte m_regIndex;
     private byte m_memIndex;
-    private RealModeAddress m_memAddress;
+    private boolean m_hasMemAddress;
+    private short m_memSegment;
+    private short m_memOffset;
 }
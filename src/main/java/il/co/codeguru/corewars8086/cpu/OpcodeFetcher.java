@@ -1,7 +1,6 @@
 package il.co.codeguru.corewars8086.cpu;
 
 import il.co.codeguru.corewars8086.memory.MemoryException;
-import il.co.codeguru.corewars8086.memory.RealModeAddress;
 import il.co.codeguru.corewars8086.memory.RealModeMemory;
 
 /**
@@ -26,10 +25,9 @@ public class OpcodeFetcher {
      * @throws MemoryException  on any error.
      */
     public byte nextByte() throws MemoryException {
-        RealModeAddress address = new RealModeAddress(
-            m_state.getCS(), m_state.getIP());
-        m_state.setIP((short)(m_state.getIP() + 1));
-        return m_memory.readExecuteByte(address);
+        short ip = m_state.getIP();
+        m_state.setIP((short)(ip + 1));
+        return m_memory.readExecuteByte(m_state.getCS(), ip);
     }
 
     /**
@@ -37,10 +35,9 @@ public class OpcodeFetcher {
      * @throws MemoryException  on any error.
      */
     public short nextWord() throws MemoryException {
-        RealModeAddress address = new RealModeAddress(
-            m_state.getCS(), m_state.getIP());
-        m_state.setIP((short)(m_state.getIP() + 2));
-        return m_memory.readExecuteWord(address);
+        short ip = m_state.getIP();
+        m_state.setIP((short)(ip + 2));
+        return m_memory.readExecuteWord(m_state.getCS(), ip);
     }
 
     /** Used to read & update CS:IP. */
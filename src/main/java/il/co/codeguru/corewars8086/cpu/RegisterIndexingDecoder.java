@@ -2,6 +2,8 @@ package il.co.codeguru.corewars8086.cpu;
 
 /**
  * Decodes the CPU's internal register indexing to the actual registers.
+ * Since CpuState keeps its registers in this order, every access is a single
+ * array access.
  * 
  * @author DL
  */
@@ -22,26 +24,7 @@ public class RegisterIndexingDecoder {
      * @return the value of the 8bit register whose index is given.
      */
     public byte getReg8(byte index) {
-        switch (index) {
-            case 0:
-                return m_state.getAL();
-            case 1:
-                return m_state.getCL();
-            case 2:
-                return m_state.getDL();
-            case 3:
-                return m_state.getBL();
-            case 4:
-                return m_state.getAH();
-            case 5:
-                return m_state.getCH();
-            case 6:
-                return m_state.getDH();
-            case 7:
-                return m_state.getBH();				
-            default:
-                throw new RuntimeException();				
-        }
+        return m_state.getReg8(index);
     }
 
     /**
@@ -50,35 +33,8 @@ public class RegisterIndexingDecoder {
      * @param value   New value for above register.
      */
     public void setReg8(byte index, byte value) {
-        switch (index) {
-            case 0:
-                m_state.setAL(value);
-                break;
-            case 1:
-                m_state.setCL(value);
-                break;
-            case 2:
-                m_state.setDL(value);
-                break;
-            case 3:
-                m_state.setBL(value);
-                break;
-            case 4:
-                m_state.setAH(value);
-                break;
-            case 5:
-                m_state.setCH(value);
-                break;
-            case 6:
-                m_state.setDH(value);
-                break;
-            case 7:
-                m_state.setBH(value);
-                break;
-            default:
-                throw new RuntimeException();				
-        }
-    }	
+        m_state.setReg8(index, value);
+    }
 
     /**
      * Returns the value of the 16bit register whose index is given.
@@ -86,26 +42,7 @@ public class RegisterIndexingDecoder {
      * @return the value of the 16bit register whose index is given.
      */	
     public short getReg16(byte index) {
-        switch (index) {
-            case 0:
-                return m_state.getAX();
-            case 1:
-                return m_state.getCX();
-            case 2:
-                return m_state.getDX();
-            case 3:
-                return m_state.getBX();
-            case 4:
-                return m_state.getSP();
-            case 5:
-                return m_state.getBP();
-            case 6:
-                return m_state.getSI();
-            case 7:
-                return m_state.getDI();				
-            default:
-                throw new RuntimeException();				
-        }
+        return m_state.getReg16(index);
     }
 
     /**
@@ -114,34 +51,7 @@ public class RegisterIndexingDecoder {
      * @param value   New value for above register.
      */
     public void setReg16(byte index, short value) {
-        switch (index) {
-            case 0:
-                m_state.setAX(value);
-                break;
-            case 1:
-                m_state.setCX(value);
-                break;
-            case 2:
-                m_state.setDX(value);
-                break;
-            case 3:
-                m_state.setBX(value);
-                break;
-            case 4:
-                m_state.setSP(value);
-                break;
-            case 5:
-                m_state.setBP(value);
-                break;
-            case 6:
-                m_state.setSI(value);
-                break;
-            case 7:
-                m_state.setDI(value);
-                break;
-            default:
-                throw new RuntimeException();				
-        }
+        m_state.setReg16(index, value);
     }
 
     /**
@@ -150,26 +60,7 @@ public class RegisterIndexingDecoder {
      * @return the value of the segment register whose index is given.
      */
     public short getSeg(byte index) {
-        switch (index) {
-            case 0:
-                return m_state.getES();
-            case 1:
-                return m_state.getCS();
-            case 2:
-                return m_state.getSS();
-            case 3:
-                return m_state.getDS();
-            case 4:
-                return m_state.getES();
-            case 5:
-                return m_state.getCS();
-            case 6:
-                return m_state.getSS();
-            case 7:
-                return m_state.getDS();				
-            default:
-                throw new RuntimeException();				
-        }
+        return m_state.getSeg(index);
     }
 
     /**
@@ -178,35 +69,8 @@ public class RegisterIndexingDecoder {
      * @param value   New value for above register.
      */
     public void setSeg(byte index, short value) {
-        switch (index) {
-            case 0:
-                m_state.setES(value);
-                break;
-            case 1:
-                m_state.setCS(value);
-                break;
-            case 2:
-                m_state.setSS(value);
-                break;
-            case 3:
-                m_state.setDS(value);
-                break;
-            case 4:
-                m_state.setES(value);
-                break;
-            case 5:
-                m_state.setCS(value);
-                break;
-            case 6:
-                m_state.setSS(value);
-                break;
-            case 7:
-                m_state.setDS(value);
-                break;
-            default:
-                throw new RuntimeException();				
-        }
-    }	
+        m_state.setSeg(index, value);
+    }
 
     /** Used to access the actual registers */
     private final CpuState m_state;
@@ -7,4 +7,7 @@ package il.co.codeguru.corewars8086.cpu;
  */
 public class UnimplementedOpcodeException extends CpuException {
 	private static final long serialVersionUID = 1L;
+
+	/** Shared instance, which may be thrown without allocating anything */
+	public static final UnimplementedOpcodeException INSTANCE = new UnimplementedOpcodeException();
 }
@@ -25,14 +25,12 @@ public class Canvas extends JComponent implements MouseInputListener {
     
     private boolean[][] pointer; 
        
-	private EventMulticaster eventCaster;
-	private MouseAddressRequest eventHandler;
+	private EventMulticaster<MouseAddressRequest> eventCaster;
 
 	private int MouseX, MouseY;
 
     public Canvas() {
-		eventCaster = new EventMulticaster(MouseAddressRequest.class);
-		eventHandler = (MouseAddressRequest) eventCaster.getProxy();
+		eventCaster = new EventMulticaster<>(new MouseAddressRequest[0]);
 		this.addMouseMotionListener(this);
 		this.addMouseListener(this);
 		this.MouseX = 0;
@@ -157,7 +155,9 @@ public class Canvas extends JComponent implements MouseInputListener {
 	
 	@Override
 	public void mouseClicked(MouseEvent arg0) {
-		eventHandler.addressAtMouseLocationRequested(this.MouseX + BOARD_SIZE* this.MouseY);
+		for (MouseAddressRequest l : eventCaster.getListeners()) {
+			l.addressAtMouseLocationRequested(this.MouseX + BOARD_SIZE* this.MouseY);
+		}
 	}
 	
 	@Override
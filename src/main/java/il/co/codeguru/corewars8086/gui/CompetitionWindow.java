@@ -315,5 +315,10 @@ public class CompetitionWindow extends JFrame
     @Override
     public void onEndRound() {
     }
+
+    @Override
+    public boolean wantsRoundEvents() {
+        return false;
+    }
     
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,38 +4,40 @@ import il.co.codeguru.corewars8086.utils.Unsigned;
 
 /**
  * Base class for classes implementing the RealModeMemory interface, which
- * provides simple implementation of the 'word' methods using the 'byte' methods.  
- * 
+ * provides simple implementation of the 'word' methods using the 'byte' methods,
+ * and of the RealModeAddress methods using the segment:offset methods.
+ *
  * @author DL
  */
 public abstract class AbstractRealModeMemory implements RealModeMemory {
-	
+
     /**
      * Reads a single byte from the specified address.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read byte.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
-    public abstract byte readByte(RealModeAddress address) throws MemoryException;
+    public abstract byte readByte(short segment, short offset)
+        throws MemoryException;
 
     /**
      * Reads a single word from the specified address.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read word.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
-    public short readWord(RealModeAddress address) throws MemoryException {
+    public short readWord(short segment, short offset) throws MemoryException {
         // read low word
-        byte low = readByte(address);
+        byte low = readByte(segment, offset);
 
         // read high word
-        RealModeAddress nextAddress = new RealModeAddress(
-            address.getSegment(), (short)(address.getOffset() + 1));
-        byte high = readByte(nextAddress);
+        byte high = readByte(segment, (short)(offset + 1));
 
         return (short)((Unsigned.unsignedByte(high) << 8) |
                 Unsigned.unsignedByte(low));
@@ -44,66 +46,126 @@ public abstract class AbstractRealModeMemory implements RealModeMemory {
     /**
      * Writes a single byte to the specified address.
      *
-     * @param address    Real-mode address to write to.
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
      * @param value      Data to write.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
-    public abstract void writeByte(RealModeAddress address, byte value)
+    public abstract void writeByte(short segment, short offset, byte value)
         throws MemoryException;
 
     /**
      * Writes a single word to the specified address.
      *
-     * @param address    Real-mode address to write to.
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
      * @param value      Data to write.
-     * 
-     * @throws MemoryException  on any error. 
-     */	
-    public void writeWord(RealModeAddress address, short value)
+     *
+     * @throws MemoryException  on any error.
+     */
+    public void writeWord(short segment, short offset, short value)
         throws MemoryException {
 
         byte low = (byte)value;
         byte high = (byte)(value >> 8);
 
         // write low byte
-        writeByte(address, low);
+        writeByte(segment, offset, low);
 
         // write high byte
-        RealModeAddress nextAddress = new RealModeAddress(
-            address.getSegment(), (short)(address.getOffset() + 1));
-        writeByte(nextAddress, high);		
+        writeByte(segment, (short)(offset + 1), high);
     }
 
     /**
      * Reads a single byte from the specified address, in order to execute it.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read byte.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
-    public abstract byte readExecuteByte(RealModeAddress address)
+    public abstract byte readExecuteByte(short segment, short offset)
         throws MemoryException;
 
     /**
      * Reads a single word from the specified address, in order to execute it.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read word.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
-    public short readExecuteWord(RealModeAddress address) throws MemoryException {
+    public short readExecuteWord(short segment, short offset)
+        throws MemoryException {
         // read low word
-        byte low = readExecuteByte(address);
+        byte low = readExecuteByte(segment, offset);
 
         // read high word
-        RealModeAddress nextAddress = new RealModeAddress(
-            address.getSegment(), (short)(address.getOffset() + 1));
-        byte high = readExecuteByte(nextAddress);
+        byte high = readExecuteByte(segment, (short)(offset + 1));
 
         return (short)((Unsigned.unsignedByte(high) << 8) |
             Unsigned.unsignedByte(low));
-    }	
+    }
+
+    /**
+     * Reads a whole segment at once. Not supported by default.
+     *
+     * @param segment    16bit Real-mode segment to read.
+     * @param buffer     Receives the byte at every offset of the segment.
+     * @return false.
+     */
+    public boolean readSegment(short segment, byte[] buffer) {
+        return false;
+    }
+
+    /**
+     * Writes a block of bytes at once. Not supported by default.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset of the first byte.
+     * @param data       Data to write.
+     * @param length     Number of bytes to write.
+     * @return false.
+     */
+    public boolean writeBlock(
+        short segment, short offset, byte[] data, int length) {
+        return false;
+    }
+
+    /** @see #readByte(short, short) */
+    public byte readByte(RealModeAddress address) throws MemoryException {
+        return readByte(address.getSegment(), address.getOffset());
+    }
+
+    /** @see #readWord(short, short) */
+    public short readWord(RealModeAddress address) throws MemoryException {
+        return readWord(address.getSegment(), address.getOffset());
+    }
+
+    /** @see #writeByte(short, short, byte) */
+    public void writeByte(RealModeAddress address, byte value)
+        throws MemoryException {
+        writeByte(address.getSegment(), address.getOffset(), value);
+    }
+
+    /** @see #writeWord(short, short, short) */
+    public void writeWord(RealModeAddress address, short value)
+        throws MemoryException {
+        writeWord(address.getSegment(), address.getOffset(), value);
+    }
+
+    /** @see #readExecuteByte(short, short) */
+    public byte readExecuteByte(RealModeAddress address)
+        throws MemoryException {
+        return readExecuteByte(address.getSegment(), address.getOffset());
+    }
+
+    /** @see #readExecuteWord(short, short) */
+    public short readExecuteWord(RealModeAddress address)
+        throws MemoryException {
+        return readExecuteWord(address.getSegment(), address.getOffset());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package il.co.codeguru.corewars8086.memory;
+
+import il.co.codeguru.corewars8086.utils.Unsigned;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a memory's window in a byte array on the Java heap.
+ */
+public final class ArrayMemoryStorage implements MemoryStorage {
+
+    /** Actual memory data */
+    private final byte[] m_data;
+
+    /**
+     * Constructor.
+     * @param size  Size of the window in bytes.
+     */
+    public ArrayMemoryStorage(int size) {
+        m_data = new byte[size];
+    }
+
+    public int size() {
+        return m_data.length;
+    }
+
+    public byte get(int index) {
+        return m_data[index];
+    }
+
+    public void put(int index, byte value) {
+        m_data[index] = value;
+    }
+
+    public short getWord(int index) {
+        return (short)((m_data[index + 1] << 8) |
+            Unsigned.unsignedByte(m_data[index]));
+    }
+
+    public void putWord(int index, short value) {
+        m_data[index] = (byte)value;
+        m_data[index + 1] = (byte)(value >> 8);
+    }
+
+    public void get(int index, byte[] buffer, int bufferIndex, int length) {
+        System.arraycopy(m_data, index, buffer, bufferIndex, length);
+    }
+
+    public void put(int index, byte[] buffer, int bufferIndex, int length) {
+        System.arraycopy(buffer, bufferIndex, m_data, index, length);
+    }
+
+    public void clear(int index, int length) {
+        Arrays.fill(m_data, index, index + length, (byte)0);
+    }
+}
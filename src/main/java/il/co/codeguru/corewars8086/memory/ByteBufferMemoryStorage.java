@@ -0,0 +1,108 @@
+package il.co.codeguru.corewars8086.memory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Keeps a memory's window in a direct (off-heap) buffer, which may also be
+ * mapped to a file.
+ *
+ * This lets other tools watch a running war's memory without copying it
+ * through the Java heap or listening to its memory events: in-process tools
+ * may read getBuffer(), and external ones may map the same file. The byte at
+ * index i of the buffer (or of the window's slot in the file) holds the byte
+ * at linear address (base + i) of the memory.
+ */
+public final class ByteBufferMemoryStorage implements MemoryStorage {
+
+    /** Actual memory data (little-endian, for reading & writing words) */
+    private final ByteBuffer m_buffer;
+
+    /** Another view of the above buffer, used for bulk copies */
+    private final ByteBuffer m_view;
+
+    /**
+     * Constructor.
+     * @param buffer  Holds the window.
+     */
+    private ByteBufferMemoryStorage(ByteBuffer buffer) {
+        m_buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        m_view = buffer.duplicate();
+    }
+
+    /**
+     * Creates a window kept in a direct buffer.
+     * @param size  Size of the window in bytes.
+     * @return the storage.
+     */
+    public static ByteBufferMemoryStorage allocateDirect(int size) {
+        return new ByteBufferMemoryStorage(ByteBuffer.allocateDirect(size));
+    }
+
+    /**
+     * Creates a window mapped to a slot of a file, so that several memories
+     * (e.g. of wars running concurrently) may share a single file.
+     * The file is created (or extended) as needed.
+     *
+     * @param file  File to map the window to.
+     * @param slot  Index of the window's slot, of 'size' bytes, in the file.
+     * @param size  Size of the window in bytes.
+     * @return the storage.
+     * @throws IOException  if the file could not be mapped.
+     */
+    public static ByteBufferMemoryStorage map(File file, int slot, int size)
+        throws IOException {
+        // the mapping remains valid once the file is closed
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            return new ByteBufferMemoryStorage(raf.getChannel().map(
+                FileChannel.MapMode.READ_WRITE, (long)slot * size, size));
+        }
+    }
+
+    /**
+     * @return a read-only view of the window.
+     */
+    public ByteBuffer getBuffer() {
+        return m_buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int size() {
+        return m_buffer.capacity();
+    }
+
+    public byte get(int index) {
+        return m_buffer.get(index);
+    }
+
+    public void put(int index, byte value) {
+        m_buffer.put(index, value);
+    }
+
+    public short getWord(int index) {
+        return m_buffer.getShort(index);
+    }
+
+    public void putWord(int index, short value) {
+        m_buffer.putShort(index, value);
+    }
+
+    public void get(int index, byte[] buffer, int bufferIndex, int length) {
+        m_view.position(index);
+        m_view.get(buffer, bufferIndex, length);
+    }
+
+    public void put(int index, byte[] buffer, int bufferIndex, int length) {
+        m_view.position(index);
+        m_view.put(buffer, bufferIndex, length);
+    }
+
+    public void clear(int index, int length) {
+        for (int i = index; i < index + length; ++i) {
+            m_buffer.put(i, (byte)0);
+        }
+    }
+}
@@ -13,4 +13,25 @@ public interface MemoryEventListener extends EventListener {
      * @param address
      */
     void onMemoryWrite(RealModeAddress address);
+
+    /**
+     * Called when a block of bytes is written to memory at once.
+     * By default, calls onMemoryWrite() for every written byte.
+     * @param address  Address of the first written byte.
+     * @param length   Number of written bytes (the offset wraps around within
+     *                 the segment).
+     */
+    default void onMemoryWrite(RealModeAddress address, int length) {
+        for (int i = 0; i < length; ++i) {
+            onMemoryWrite(new RealModeAddress(address.getSegment(),
+                (short)(address.getOffset() + i)));
+        }
+    }
+
+    /**
+     * @return whether or not onMemoryWrite() should currently be called.
+     */
+    default boolean isListening() {
+        return true;
+    }
 }
@@ -0,0 +1,36 @@
+package il.co.codeguru.corewars8086.memory;
+
+import il.co.codeguru.corewars8086.utils.EventMulticaster;
+
+/**
+ * Broadcasts memory events to a number of listeners.
+ */
+public class MemoryEventMulticaster extends EventMulticaster<MemoryEventListener>
+    implements MemoryEventListener {
+
+    public MemoryEventMulticaster() {
+        super(new MemoryEventListener[0]);
+    }
+
+    public void onMemoryWrite(RealModeAddress address) {
+        for (MemoryEventListener listener : getListeners()) {
+            listener.onMemoryWrite(address);
+        }
+    }
+
+    @Override
+    public void onMemoryWrite(RealModeAddress address, int length) {
+        for (MemoryEventListener listener : getListeners()) {
+            listener.onMemoryWrite(address, length);
+        }
+    }
+
+    /**
+     * @return whether or not there are any listeners, so the memory does not
+     *         create the written address for nothing.
+     */
+    @Override
+    public boolean isListening() {
+        return !isEmpty();
+    }
+}
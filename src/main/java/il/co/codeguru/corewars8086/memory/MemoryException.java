@@ -7,4 +7,15 @@ package il.co.codeguru.corewars8086.memory;
  */
 public class MemoryException extends Exception {
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor. The stack trace is not filled in, as these exceptions only
+	 * signal that a warrior has died (so none of them should be costly).
+	 */
+	public MemoryException() {
+		super(null, null, false, false);
+	}
+
+	/** Shared instance, which may be thrown without allocating anything */
+	public static final MemoryException INSTANCE = new MemoryException();
 }
@@ -0,0 +1,68 @@
+package il.co.codeguru.corewars8086.memory;
+
+/**
+ * Holds the bytes of a memory's mapped window, by their index in the window.
+ *
+ * RealModeMemoryImpl does all the address computations and checks, so
+ * implementations only store bytes, and may assume that every index (and
+ * every block) given to them is within the window.
+ */
+public interface MemoryStorage {
+
+    /**
+     * @return size of the window in bytes.
+     */
+    int size();
+
+    /**
+     * @param index  Index of a byte.
+     * @return the byte.
+     */
+    byte get(int index);
+
+    /**
+     * @param index  Index of a byte.
+     * @param value  The byte's new value.
+     */
+    void put(int index, byte value);
+
+    /**
+     * @param index  Index of the word's low byte.
+     * @return the (little-endian) word.
+     */
+    short getWord(int index);
+
+    /**
+     * @param index  Index of the word's low byte.
+     * @param value  The (little-endian) word's new value.
+     */
+    void putWord(int index, short value);
+
+    /**
+     * Copies a block of bytes out of the window.
+     *
+     * @param index        Index of the block.
+     * @param buffer       Buffer to copy the block to.
+     * @param bufferIndex  Index in the buffer to copy the block to.
+     * @param length       Length of the block.
+     */
+    void get(int index, byte[] buffer, int bufferIndex, int length);
+
+    /**
+     * Copies a block of bytes into the window.
+     *
+     * @param index        Index of the block.
+     * @param buffer       Buffer to copy the block from.
+     * @param bufferIndex  Index in the buffer of the block's first byte.
+     * @param length       Length of the block.
+     */
+    void put(int index, byte[] buffer, int bufferIndex, int length);
+
+    /**
+     * Zeroes a block of bytes.
+     *
+     * @param index   Index of the block.
+     * @param length  Length of the block.
+     */
+    void clear(int index, int length);
+}
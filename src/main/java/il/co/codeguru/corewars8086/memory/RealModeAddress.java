@@ -18,12 +18,7 @@ public class RealModeAddress {
     public RealModeAddress(short segment, short offset) {
         m_segment = segment;
         m_offset = offset;
-
-		int unsignedSegment = Unsigned.unsignedShort(m_segment);
-		int unsignedOffset = Unsigned.unsignedShort(m_offset);
-
-		int linearAddressFull = unsignedSegment * PARAGRAPH_SIZE + unsignedOffset;
-		m_linearAddress = linearAddressFull % MEMORY_SIZE;
+		m_linearAddress = getLinearAddress(segment, offset);
     }
 
     /**
@@ -68,10 +63,25 @@ public class RealModeAddress {
 		return m_linearAddress;
     }
 
+    /**
+     * Translates a segment:offset pair to a linear address, without
+     * allocating a RealModeAddress instance.
+     *
+     * @param segment    16bit Real-mode segment.
+     * @param offset     16bit Real-mode offset.
+     * @return 32bit linear address (wrapped around the memory size).
+     */
+    public static int getLinearAddress(short segment, short offset) {
+        int linearAddressFull = Unsigned.unsignedShort(segment) * PARAGRAPH_SIZE +
+            Unsigned.unsignedShort(offset);
+        return linearAddressFull % MEMORY_SIZE;
+    }
+
     /** Various real-mode memory constants. */	
     public static final int NUM_PARAGRAPHS = 64 * 1024;	
     public static final int PARAGRAPH_SIZE = 0x10;	
     public static final int PARAGRAPHS_IN_SEGMENT = 0x1000;	
+    public static final int SEGMENT_SIZE = PARAGRAPHS_IN_SEGMENT * PARAGRAPH_SIZE;
     public static final int MEMORY_SIZE = NUM_PARAGRAPHS * PARAGRAPH_SIZE;
 
     /** 16bit Real-Mode segment. */	
@@ -82,4 +92,4 @@ public class RealModeAddress {
 
 	/** cached linear representation of segment and offset */
 	private int m_linearAddress;
-}
\ No newline at end of file
+}
\ No newline at end of file
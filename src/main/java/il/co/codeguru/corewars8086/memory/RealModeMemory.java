@@ -2,18 +2,123 @@ package il.co.codeguru.corewars8086.memory;
 
 /**
  * Interface for 16bit Real-Mode memory.
- * 
+ *
+ * The segment:offset methods are the ones used by the Cpu, as they do not
+ * require allocating a RealModeAddress for every access. The RealModeAddress
+ * methods are kept for the convenience of the UI.
+ *
  * @author DL
  */
 public interface RealModeMemory {
 
+    /**
+     * Reads a single byte from the specified address.
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read byte.
+     *
+     * @throws MemoryException  on any error.
+     */
+    public abstract byte readByte(short segment, short offset)
+        throws MemoryException;
+
+    /**
+     * Reads a single word from the specified address.
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read word.
+     *
+     * @throws MemoryException  on any error.
+     */
+    public abstract short readWord(short segment, short offset)
+        throws MemoryException;
+
+    /**
+     * Writes a single byte to the specified address.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
+     * @param value      Data to write.
+     *
+     * @throws MemoryException  on any error.
+     */
+    public abstract void writeByte(short segment, short offset, byte value)
+        throws MemoryException;
+
+    /**
+     * Writes a single word to the specified address.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
+     * @param value      Data to write.
+     *
+     * @throws MemoryException  on any error.
+     */
+    public abstract void writeWord(short segment, short offset, short value)
+        throws MemoryException;
+
+    /**
+     * Reads a single byte from the specified address, in order to execute it.
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read byte.
+     *
+     * @throws MemoryException  on any error.
+     */
+    public abstract byte readExecuteByte(short segment, short offset)
+        throws MemoryException;
+
+    /**
+     * Reads a single word from the specified address, in order to execute it.
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read word.
+     *
+     * @throws MemoryException  on any error.
+     */
+    public abstract short readExecuteWord(short segment, short offset)
+        throws MemoryException;
+
+    /**
+     * Reads a whole segment at once, provided that all of it may be read
+     * (e.g. in order to search it without checking every single access).
+     *
+     * @param segment    16bit Real-mode segment to read.
+     * @param buffer     Receives the byte at every offset of the segment (at
+     *                   least SEGMENT_SIZE bytes long).
+     * @return whether or not the segment was read. If some of the segment
+     *         may not be read, nothing is, and the caller should fall back
+     *         to reading it byte by byte.
+     */
+    public abstract boolean readSegment(short segment, byte[] buffer);
+
+    /**
+     * Writes a block of bytes at once, provided that all of it may be
+     * written.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset of the first byte (the offset
+     *                   wraps around within the segment).
+     * @param data       Data to write.
+     * @param length     Number of bytes to write (at most SEGMENT_SIZE).
+     * @return whether or not the block was written. If some of the block
+     *         may not be written, nothing is, and the caller should fall
+     *         back to writing it byte by byte.
+     */
+    public abstract boolean writeBlock(
+        short segment, short offset, byte[] data, int length);
+
     /**
      * Reads a single byte from the specified address.
      *
      * @param address    Real-mode address to read from.
      * @return the read byte.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
     public abstract byte readByte(RealModeAddress address) throws MemoryException;
 
@@ -22,8 +127,8 @@ public interface RealModeMemory {
      *
      * @param address    Real-mode address to read from.
      * @return the read word.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
     public abstract short readWord(RealModeAddress address) throws MemoryException;
 
@@ -32,8 +137,8 @@ public interface RealModeMemory {
      *
      * @param address    Real-mode address to write to.
      * @param value      Data to write.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
     public abstract void writeByte(RealModeAddress address, byte value)
         throws MemoryException;
@@ -43,9 +148,9 @@ public interface RealModeMemory {
      *
      * @param address    Real-mode address to write to.
      * @param value      Data to write.
-     * 
-     * @throws MemoryException  on any error. 
-     */	
+     *
+     * @throws MemoryException  on any error.
+     */
     public abstract void writeWord(RealModeAddress address, short value)
         throws MemoryException;
 
@@ -54,8 +159,8 @@ public interface RealModeMemory {
      *
      * @param address    Real-mode address to read from.
      * @return the read byte.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
     public abstract byte readExecuteByte(RealModeAddress address)
         throws MemoryException;
@@ -65,9 +170,9 @@ public interface RealModeMemory {
      *
      * @param address    Real-mode address to read from.
      * @return the read word.
-     * 
-     * @throws MemoryException  on any error. 
+     *
+     * @throws MemoryException  on any error.
      */
     public abstract short readExecuteWord(RealModeAddress address)
-        throws MemoryException;	
+        throws MemoryException;
 }
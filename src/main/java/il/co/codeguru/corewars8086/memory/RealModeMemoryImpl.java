@@ -1,8 +1,24 @@
 package il.co.codeguru.corewars8086.memory;
 
+import il.co.codeguru.corewars8086.utils.Unsigned;
+
+import java.util.Arrays;
+
 /**
  * Implements the RealModeMemory interface using a buffer.
  *
+ * The buffer may hold only a window of the memory (e.g. just the parts of it
+ * a war actually uses), in which case the rest of the memory is unmapped:
+ * reading from it returns zeroes, and writing to it is ignored. Addresses are
+ * still computed (and wrap around) as in the whole memory.
+ *
+ * The window is kept in a MemoryStorage: a byte array by default, or e.g. a
+ * direct buffer mapped to a file, which other tools can watch.
+ *
+ * The memory may also maintain a hash of its contents, updated on every write
+ * (Zobrist-style: every nonzero byte contributes a key derived from its
+ * address & value), so that memories can be compared without copying them.
+ *
  * @author DL
  */
 public class RealModeMemoryImpl extends AbstractRealModeMemory {
@@ -11,53 +27,450 @@ public class RealModeMemoryImpl extends AbstractRealModeMemory {
     private MemoryEventListener listener;
 
     /** Actual memory data */
-    private byte[] m_data;
+    private final MemoryStorage m_data;
+
+    /** Linear address of the first byte in the above storage */
+    private final int m_base;
+
+    /** Whether or not the hash of the memory's contents is maintained */
+    private boolean m_isHashing;
+
+    /** Hash of the memory's contents (only valid while maintained) */
+    private long m_hash;
 
     /**
      * Constructor.
      */
     public RealModeMemoryImpl() {
-        m_data = new byte[RealModeAddress.MEMORY_SIZE];
+        this(0, RealModeAddress.MEMORY_SIZE);
+    }
+
+    /**
+     * Constructor, of a memory in which only a given window is mapped.
+     * @param base  Linear address of the window.
+     * @param size  Size of the window in bytes (it may not wrap around the
+     *              end of the memory).
+     */
+    public RealModeMemoryImpl(int base, int size) {
+        this(base, new ArrayMemoryStorage(size));
+    }
+
+    /**
+     * Constructor, of a memory whose window is kept in the given storage.
+     * @param base     Linear address of the window.
+     * @param storage  Holds the window (it may not wrap around the end of the
+     *                 memory).
+     */
+    public RealModeMemoryImpl(int base, MemoryStorage storage) {
+        if ((base < 0) || (base + storage.size() > RealModeAddress.MEMORY_SIZE)) {
+            throw new IllegalArgumentException();
+        }
+        m_base = base;
+        m_data = storage;
     }
 
     /**
      * Reads a single byte from the specified address.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read byte.
-     * 
-     * @throws MemoryException  on any error. 
      */
-    public byte readByte(RealModeAddress address) {
-        return m_data[address.getLinearAddress()];		
+    public byte readByte(short segment, short offset) {
+        return getByte(RealModeAddress.getLinearAddress(segment, offset));
     }
 
     /**
      * Writes a single byte to the specified address.
      *
-     * @param address    Real-mode address to write to.
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
      * @param value      Data to write.
-     * 
-     * @throws MemoryException  on any error. 
      */
-    public void writeByte(RealModeAddress address, byte value) {
-        m_data[address.getLinearAddress()] = value;
-        if (listener != null) {
-            listener.onMemoryWrite(address);
+    public void writeByte(short segment, short offset, byte value) {
+        int linearAddress = RealModeAddress.getLinearAddress(segment, offset);
+        int index = linearAddress - m_base;
+        if ((index < 0) || (index >= m_data.size())) {
+            return;
+        }
+        if (m_isHashing) {
+            updateHash(linearAddress, m_data.get(index), value);
+        }
+        m_data.put(index, value);
+        if ((listener != null) && listener.isListening()) {
+            listener.onMemoryWrite(new RealModeAddress(segment, offset));
+        }
+    }
+
+    /**
+     * Reads a single word from the specified address.
+     * The word is read directly from the buffer, unless it wraps around the
+     * end of the segment or of the memory (or is not entirely mapped).
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read word.
+     */
+    public short readWord(short segment, short offset) {
+        int index = getWordIndex(offset,
+            RealModeAddress.getLinearAddress(segment, offset));
+        if (index < 0) {
+            byte low = readByte(segment, offset);
+            byte high = readByte(segment, (short)(offset + 1));
+            return (short)((Unsigned.unsignedByte(high) << 8) |
+                Unsigned.unsignedByte(low));
+        }
+        return m_data.getWord(index);
+    }
+
+    /**
+     * Writes a single word to the specified address.
+     * As in readWord(), the word is written directly to the buffer (notifying
+     * the listener once), unless it wraps around.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
+     * @param value      Data to write.
+     */
+    public void writeWord(short segment, short offset, short value) {
+        int linearAddress = RealModeAddress.getLinearAddress(segment, offset);
+        int index = getWordIndex(offset, linearAddress);
+        if (index < 0) {
+            writeByte(segment, offset, (byte)value);
+            writeByte(segment, (short)(offset + 1), (byte)(value >> 8));
+            return;
+        }
+        if (m_isHashing) {
+            updateHash(linearAddress, m_data.get(index), (byte)value);
+            updateHash(linearAddress + 1, m_data.get(index + 1), (byte)(value >> 8));
+        }
+        m_data.putWord(index, value);
+        if ((listener != null) && listener.isListening()) {
+            listener.onMemoryWrite(new RealModeAddress(segment, offset), 2);
         }
     }
 
     /**
      * Reads a single byte from the specified address, in order to execute it.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read byte.
-     * 
-     * @throws MemoryException  on any error. 
      */
+    public byte readExecuteByte(short segment, short offset) {
+        return getByte(RealModeAddress.getLinearAddress(segment, offset));
+    }
+
+    /**
+     * Reads a single word from the specified address, in order to execute it.
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read word.
+     */
+    public short readExecuteWord(short segment, short offset) {
+        return readWord(segment, offset);
+    }
+
+    /**
+     * Reads a whole segment at once.
+     *
+     * @param segment    16bit Real-mode segment to read.
+     * @param buffer     Receives the byte at every offset of the segment.
+     * @return true.
+     */
+    public boolean readSegment(short segment, byte[] buffer) {
+        int linearAddress = RealModeAddress.getLinearAddress(segment, (short)0);
+        // the segment may wrap around the end of the memory
+        int length = Math.min(RealModeAddress.SEGMENT_SIZE,
+            RealModeAddress.MEMORY_SIZE - linearAddress);
+        copyFromWindow(linearAddress, buffer, 0, length);
+        copyFromWindow(0, buffer, length,
+            RealModeAddress.SEGMENT_SIZE - length);
+        return true;
+    }
+
+    /**
+     * Writes a block of bytes at once, notifying the listener once for the
+     * whole block.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset of the first byte.
+     * @param data       Data to write.
+     * @param length     Number of bytes to write.
+     * @return true.
+     */
+    public boolean writeBlock(
+        short segment, short offset, byte[] data, int length) {
+        // copy the block in chunks which wrap around neither the end of the
+        // segment nor the end of the memory
+        int written = 0;
+        while (written < length) {
+            short chunkOffset = (short)(offset + written);
+            int linearAddress =
+                RealModeAddress.getLinearAddress(segment, chunkOffset);
+            int chunk = Math.min(length - written, Math.min(
+                RealModeAddress.SEGMENT_SIZE - Unsigned.unsignedShort(chunkOffset),
+                RealModeAddress.MEMORY_SIZE - linearAddress));
+
+            copyToWindow(data, written, linearAddress, chunk);
+            written += chunk;
+        }
+        if ((listener != null) && listener.isListening()) {
+            listener.onMemoryWrite(new RealModeAddress(segment, offset), length);
+        }
+        return true;
+    }
+
+    /**
+     * Copies a block of data to memory.
+     * Unlike writeByte(), the listener is not notified, so this should only
+     * be used to (re)initialize the memory.
+     *
+     * @param linearAddress  Linear address to copy the data to (the block
+     *                       must be mapped).
+     * @param data           Data to copy.
+     */
+    public void load(int linearAddress, byte[] data) {
+        int index = linearAddress - m_base;
+        if (m_isHashing) {
+            for (int i = 0; i < data.length; ++i) {
+                updateHash(linearAddress + i, m_data.get(index + i), data[i]);
+            }
+        }
+        m_data.put(index, data, 0, data.length);
+    }
+
+    /**
+     * Zeroes a block of memory.
+     * Unlike writeByte(), the listener is not notified, so this should only
+     * be used to (re)initialize the memory.
+     *
+     * @param linearAddress  Linear address of the block (the block must be
+     *                       mapped).
+     * @param size           Size of the block in bytes.
+     */
+    public void clear(int linearAddress, int size) {
+        int index = linearAddress - m_base;
+        if (m_isHashing) {
+            for (int i = 0; i < size; ++i) {
+                updateHash(linearAddress + i, m_data.get(index + i), (byte)0);
+            }
+        }
+        m_data.clear(index, size);
+    }
+
+    /**
+     * @return size of the mapped window in bytes.
+     */
+    public int getWindowSize() {
+        return m_data.size();
+    }
+
+    /**
+     * @return the storage holding the mapped window.
+     */
+    public MemoryStorage getStorage() {
+        return m_data;
+    }
+
+    /**
+     * Copies the whole mapped window (e.g. to snapshot the memory).
+     * @param buffer  Receives the window (at least getWindowSize() bytes).
+     */
+    public void copyWindow(byte[] buffer) {
+        m_data.get(0, buffer, 0, m_data.size());
+    }
+
+    /**
+     * Starts or stops maintaining the hash of the memory's contents.
+     * Starting it computes the hash of the whole window, after which every
+     * write updates it in constant time (per byte). While stopped, writes
+     * only pay for checking a flag.
+     *
+     * @param isHashing  Whether or not the hash should be maintained.
+     */
+    public void setHashing(boolean isHashing) {
+        if (isHashing && !m_isHashing) {
+            m_hash = computeHash();
+        }
+        m_isHashing = isHashing;
+    }
+
+    /**
+     * @return whether or not the hash of the memory's contents is maintained.
+     */
+    public boolean isHashing() {
+        return m_isHashing;
+    }
+
+    /**
+     * Returns the hash of the memory's contents: memories with the same
+     * contents have the same hash, and memories with different contents
+     * almost always have different hashes.
+     *
+     * @return the hash (only valid while maintained, see setHashing()).
+     */
+    public long getHash() {
+        return m_hash;
+    }
+
+    /**
+     * Computes the hash the memory would have if its window held the given
+     * contents (e.g. a copy made by copyWindow()).
+     *
+     * @param window  Contents of the window.
+     * @return the hash.
+     */
+    public long getHash(byte[] window) {
+        long hash = 0;
+        for (int i = 0; i < window.length; ++i) {
+            hash ^= getHashKey(m_base + i, window[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * @return the hash of the memory's current contents, computed from
+     *         scratch.
+     */
+    private long computeHash() {
+        long hash = 0;
+        for (int i = 0; i < m_data.size(); ++i) {
+            hash ^= getHashKey(m_base + i, m_data.get(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Updates the hash of the memory's contents when a byte is overwritten.
+     * Should only be called while the hash is maintained.
+     *
+     * @param linearAddress  Linear address of the byte.
+     * @param oldValue       The byte's previous value.
+     * @param newValue       The byte's new value.
+     */
+    private void updateHash(
+        int linearAddress, byte oldValue, byte newValue) {
+        m_hash ^= getHashKey(linearAddress, oldValue) ^
+            getHashKey(linearAddress, newValue);
+    }
+
+    /**
+     * Returns the key a byte contributes to the hash of the memory.
+     * Zero bytes contribute nothing, so unmapped (and cleared) memory need
+     * not be hashed. Other keys are pseudo-random (SplitMix64's finalizer),
+     * rather than kept in a table of 256 keys per address.
+     *
+     * @param linearAddress  Linear address of the byte.
+     * @param value          The byte's value.
+     * @return the key.
+     */
+    private static long getHashKey(int linearAddress, byte value) {
+        if (value == 0) {
+            return 0;
+        }
+        long key = (((long)linearAddress << 8) | Unsigned.unsignedByte(value)) *
+            0x9E3779B97F4A7C15L;
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
+
+    /**
+     * @param linearAddress  Linear address of a byte.
+     * @return the byte (or 0 if it is not mapped).
+     */
+    private byte getByte(int linearAddress) {
+        int index = linearAddress - m_base;
+        if ((index < 0) || (index >= m_data.size())) {
+            return 0;
+        }
+        return m_data.get(index);
+    }
+
+    /**
+     * Returns the index in the buffer of a word's low byte, provided that the
+     * word's bytes are adjacent in the buffer, i.e. the word wraps around
+     * neither the end of its segment (offset 0xFFFF) nor the end of the
+     * memory, and is entirely mapped.
+     *
+     * @param offset         16bit Real-mode offset of the word.
+     * @param linearAddress  Linear address of the word's low byte.
+     * @return the index, or -1 if the bytes are not adjacent.
+     */
+    private int getWordIndex(short offset, int linearAddress) {
+        int index = linearAddress - m_base;
+        if ((offset == (short)0xFFFF) || (index < 0) ||
+            (index >= m_data.size() - 1)) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Copies a block of memory which does not wrap around to a buffer, in
+     * which its unmapped parts are zeroed.
+     *
+     * @param linearAddress  Linear address of the block.
+     * @param buffer         Buffer to copy the block to.
+     * @param index          Index in the buffer to copy the block to.
+     * @param length         Length of the block.
+     */
+    private void copyFromWindow(
+        int linearAddress, byte[] buffer, int index, int length) {
+        int start = Math.max(linearAddress, m_base);
+        int end = Math.min(linearAddress + length, m_base + m_data.size());
+        if (start >= end) {
+            Arrays.fill(buffer, index, index + length, (byte)0);
+            return;
+        }
+        Arrays.fill(buffer, index, index + (start - linearAddress), (byte)0);
+        m_data.get(start - m_base,
+            buffer, index + (start - linearAddress), end - start);
+        Arrays.fill(buffer, index + (end - linearAddress), index + length,
+            (byte)0);
+    }
+
+    /**
+     * Copies a buffer to a block of memory which does not wrap around,
+     * skipping the block's unmapped parts.
+     *
+     * @param data           Buffer to copy.
+     * @param index          Index in the buffer of the first byte to copy.
+     * @param linearAddress  Linear address of the block.
+     * @param length         Length of the block.
+     */
+    private void copyToWindow(
+        byte[] data, int index, int linearAddress, int length) {
+        int start = Math.max(linearAddress, m_base);
+        int end = Math.min(linearAddress + length, m_base + m_data.size());
+        if (start < end) {
+            if (m_isHashing) {
+                for (int address = start; address < end; ++address) {
+                    updateHash(address, m_data.get(address - m_base),
+                        data[index + (address - linearAddress)]);
+                }
+            }
+            m_data.put(start - m_base,
+                data, index + (start - linearAddress), end - start);
+        }
+    }
+
+    /** @see #readByte(short, short) */
+    public byte readByte(RealModeAddress address) {
+        return getByte(address.getLinearAddress());
+    }
+
+    /** @see #writeByte(short, short, byte) */
+    public void writeByte(RealModeAddress address, byte value) {
+        writeByte(address.getSegment(), address.getOffset(), value);
+    }
+
+    /** @see #readExecuteByte(short, short) */
     public byte readExecuteByte(RealModeAddress address) {
-        return m_data[address.getLinearAddress()];		
-    }	
+        return getByte(address.getLinearAddress());
+    }
 
     /**
      * @return Returns the listener.
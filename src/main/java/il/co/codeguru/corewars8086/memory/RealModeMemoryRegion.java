@@ -25,15 +25,38 @@ public class RealModeMemoryRegion {
      * @return whether or not the given address is within the region.
      */
     public boolean isInRegion(RealModeAddress address) {
+        return isInRegion(address.getLinearAddress());
+    }
+
+    /**
+     * Returns whether or not a given linear address is within the region.
+     * 
+     * @param linearAddress  Linear address to check.
+     * @return whether or not the given address is within the region.
+     */
+    public boolean isInRegion(int linearAddress) {
         final int start = m_start.getLinearAddress();
         final int end = m_end.getLinearAddress();
-        final int asked = address.getLinearAddress();
 
-        return ((asked >= start) && (asked <= end));		
+        return ((linearAddress >= start) && (linearAddress <= end));		
+    }
+
+    /**
+     * @return the region's start address.
+     */
+    public RealModeAddress getStart() {
+        return m_start;
+    }
+
+    /**
+     * @return the region's end address (inclusive).
+     */
+    public RealModeAddress getEnd() {
+        return m_end;
     }
 
     /** Region's start address */
     private final RealModeAddress m_start;
     /** Region's end address */
     private final RealModeAddress m_end;
-}
\ No newline at end of file
+}
\ No newline at end of file
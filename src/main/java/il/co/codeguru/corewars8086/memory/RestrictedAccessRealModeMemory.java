@@ -1,9 +1,18 @@
 package il.co.codeguru.corewars8086.memory;
 
+import il.co.codeguru.corewars8086.utils.Unsigned;
+
+import java.util.Arrays;
+
 /**
  * Implementation of the RealModeMemory interface which limits memory access
  * to given regions of the memory.
  * 
+ * To keep the access checks cheap, the regions are precomputed into a map
+ * holding the read/write/execute permissions of every page of the memory.
+ * Only pages which are partially covered by a region require matching the
+ * address against the regions themselves.
+ * 
  * @author DL
  */
 public class RestrictedAccessRealModeMemory extends AbstractRealModeMemory {
@@ -23,77 +32,293 @@ public class RestrictedAccessRealModeMemory extends AbstractRealModeMemory {
         RealModeMemoryRegion[] executeAccessRegions) {
 
         m_memory = memory;
+        m_permissions = new byte[NUM_PAGES];
+        setAccessRegions(
+            readAccessRegions, writeAccessRegions, executeAccessRegions);
+    }
+
+    /**
+     * Replaces the regions to which access is allowed (e.g. when the same
+     * warrior is reused in another war).
+     *
+     * @param readAccessRegions     Reading from these regions is allowed.
+     * @param writeAccessRegions    Writing to these regions is allowed.
+     * @param executeAccessRegions  Executing these regions is allowed.
+     */
+    public void setAccessRegions(
+        RealModeMemoryRegion[] readAccessRegions,
+        RealModeMemoryRegion[] writeAccessRegions,
+        RealModeMemoryRegion[] executeAccessRegions) {
+
         m_readAccessRegions = readAccessRegions;
         m_writeAccessRegions = writeAccessRegions;
         m_executeAccessRegions = executeAccessRegions;
+
+        Arrays.fill(m_permissions, (byte)0);
+        addPermissions(readAccessRegions, READ_ALLOWED, READ_PARTIAL);
+        addPermissions(writeAccessRegions, WRITE_ALLOWED, WRITE_PARTIAL);
+        addPermissions(executeAccessRegions, EXECUTE_ALLOWED, EXECUTE_PARTIAL);
     }
 
     /**
      * Reads a single byte from the specified address.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read byte.
      * 
      * @throws MemoryException  if reading is not allowed from this address.
      */
-    public byte readByte(RealModeAddress address) throws MemoryException {
+    public byte readByte(short segment, short offset) throws MemoryException {
         // is reading allowed from this address ?
-        if (!isAddressInRegions(m_readAccessRegions, address)) {
-            throw new MemoryException();			
+        if (!isAccessAllowed(m_readAccessRegions, READ_ALLOWED, READ_PARTIAL,
+                segment, offset)) {
+            throw MemoryException.INSTANCE;			
         }
 
-        return m_memory.readByte(address);		
+        return m_memory.readByte(segment, offset);		
     }
 
     /**
      * Writes a single byte to the specified address.
      *
-     * @param address    Real-mode address to write to.
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
      * @param value      Data to write.
      * 
      * @throws MemoryException  if writing is not allowed to this address. 
      */
-    public void writeByte(RealModeAddress address, byte value) throws MemoryException {
+    public void writeByte(short segment, short offset, byte value)
+        throws MemoryException {
         // is writing allowed to this address ?
-        if (!isAddressInRegions(m_writeAccessRegions, address)) {
-            throw new MemoryException();			
+        if (!isAccessAllowed(m_writeAccessRegions, WRITE_ALLOWED, WRITE_PARTIAL,
+                segment, offset)) {
+            throw MemoryException.INSTANCE;			
         }
 
-        m_memory.writeByte(address, value);
+        m_memory.writeByte(segment, offset, value);
+    }
+
+    /**
+     * Reads a single word from the specified address, checking both of its
+     * bytes before reading the whole word from the wrapped memory.
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read word.
+     * 
+     * @throws MemoryException  if reading is not allowed from this address.
+     */
+    public short readWord(short segment, short offset) throws MemoryException {
+        // is reading allowed from both bytes ?
+        if (!isAccessAllowed(m_readAccessRegions, READ_ALLOWED, READ_PARTIAL,
+                segment, offset) ||
+            !isAccessAllowed(m_readAccessRegions, READ_ALLOWED, READ_PARTIAL,
+                segment, (short)(offset + 1))) {
+            throw MemoryException.INSTANCE;
+        }
+
+        return m_memory.readWord(segment, offset);
+    }
+
+    /**
+     * Writes a single word to the specified address, checking both of its
+     * bytes before writing the whole word to the wrapped memory.
+     * 
+     * As when the word is written byte by byte, the low byte is still
+     * written if writing is allowed only to it.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset to write to.
+     * @param value      Data to write.
+     * 
+     * @throws MemoryException  if writing is not allowed to this address. 
+     */
+    public void writeWord(short segment, short offset, short value)
+        throws MemoryException {
+        // is writing allowed to the low byte ?
+        if (!isAccessAllowed(m_writeAccessRegions, WRITE_ALLOWED, WRITE_PARTIAL,
+                segment, offset)) {
+            throw MemoryException.INSTANCE;
+        }
+        // and to the high byte ?
+        if (!isAccessAllowed(m_writeAccessRegions, WRITE_ALLOWED, WRITE_PARTIAL,
+                segment, (short)(offset + 1))) {
+            m_memory.writeByte(segment, offset, (byte)value);
+            throw MemoryException.INSTANCE;
+        }
+
+        m_memory.writeWord(segment, offset, value);
     }
 
     /**
      * Reads a single byte from the specified address, in order to execute it.
      *
-     * @param address    Real-mode address to read from.
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
      * @return the read byte.
      * 
      * @throws MemoryException  if reading is not allowed from this address.
      */
-    public byte readExecuteByte(RealModeAddress address) throws MemoryException {
+    public byte readExecuteByte(short segment, short offset)
+        throws MemoryException {
         // is reading allowed from this address ?
-        if (!isAddressInRegions(m_executeAccessRegions, address)) {
-            throw new MemoryException();			
+        if (!isAccessAllowed(m_executeAccessRegions, EXECUTE_ALLOWED,
+                EXECUTE_PARTIAL, segment, offset)) {
+            throw MemoryException.INSTANCE;			
         }
 
-        return m_memory.readExecuteByte(address);		
+        return m_memory.readExecuteByte(segment, offset);		
     }	
 
+    /**
+     * Reads a single word from the specified address, in order to execute it.
+     * As in readWord(), both bytes are checked before reading the whole word.
+     *
+     * @param segment    16bit Real-mode segment to read from.
+     * @param offset     16bit Real-mode offset to read from.
+     * @return the read word.
+     * 
+     * @throws MemoryException  if reading is not allowed from this address.
+     */
+    public short readExecuteWord(short segment, short offset)
+        throws MemoryException {
+        // is executing allowed from both bytes ?
+        if (!isAccessAllowed(m_executeAccessRegions, EXECUTE_ALLOWED,
+                EXECUTE_PARTIAL, segment, offset) ||
+            !isAccessAllowed(m_executeAccessRegions, EXECUTE_ALLOWED,
+                EXECUTE_PARTIAL, segment, (short)(offset + 1))) {
+            throw MemoryException.INSTANCE;
+        }
+
+        return m_memory.readExecuteWord(segment, offset);
+    }
+
+    /**
+     * Reads a whole segment at once, provided that reading is allowed from
+     * all of it.
+     *
+     * Only pages which are entirely allowed are considered, so the segment
+     * is not read if it merely touches a partially allowed page (even if the
+     * part it covers is allowed).
+     *
+     * @param segment    16bit Real-mode segment to read.
+     * @param buffer     Receives the byte at every offset of the segment.
+     * @return whether or not the segment was read.
+     */
+    public boolean readSegment(short segment, byte[] buffer) {
+        if (!areWholePagesAllowed(READ_ALLOWED, segment, (short)0,
+                RealModeAddress.SEGMENT_SIZE)) {
+            return false;
+        }
+
+        return m_memory.readSegment(segment, buffer);
+    }
+
+    /**
+     * Writes a block of bytes at once, provided that writing is allowed to
+     * all of it.
+     *
+     * As in readSegment(), only pages which are entirely allowed are
+     * considered.
+     *
+     * @param segment    16bit Real-mode segment to write to.
+     * @param offset     16bit Real-mode offset of the first byte.
+     * @param data       Data to write.
+     * @param length     Number of bytes to write.
+     * @return whether or not the block was written.
+     */
+    public boolean writeBlock(
+        short segment, short offset, byte[] data, int length) {
+        if (!areWholePagesAllowed(WRITE_ALLOWED, segment, offset, length)) {
+            return false;
+        }
+
+        return m_memory.writeBlock(segment, offset, data, length);
+    }
+
+    /**
+     * Checks whether or not a given kind of access is allowed to all the
+     * pages covered by a block of memory.
+     *
+     * @param allowedMask   Permission bit of pages which are entirely allowed.
+     * @param segment       16bit Real-mode segment of the block.
+     * @param offset        16bit Real-mode offset of the block's first byte
+     *                      (the offset wraps around within the segment).
+     * @param length        Length of the block (at most SEGMENT_SIZE).
+     * @return whether or not all the pages are entirely allowed.
+     */
+    private boolean areWholePagesAllowed(
+        byte allowedMask, short segment, short offset, int length) {
+
+        // check the block in chunks which do not wrap around the segment
+        int checked = 0;
+        while (checked < length) {
+            short chunkOffset = (short)(offset + checked);
+            int chunk = Math.min(length - checked,
+                RealModeAddress.SEGMENT_SIZE - Unsigned.unsignedShort(chunkOffset));
+            int page = RealModeAddress.getLinearAddress(
+                segment, chunkOffset) >>> PAGE_SHIFT;
+            int lastPage = RealModeAddress.getLinearAddress(
+                segment, (short)(chunkOffset + chunk - 1)) >>> PAGE_SHIFT;
+
+            // the chunk itself may wrap around the end of the memory
+            while ((m_permissions[page] & allowedMask) != 0) {
+                if (page == lastPage) {
+                    break;
+                }
+                page = (page + 1) % NUM_PAGES;
+            }
+            if ((m_permissions[page] & allowedMask) == 0) {
+                return false;
+            }
+            checked += chunk;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether or not a given kind of access is allowed to a given
+     * address, using the permissions map.
+     * 
+     * @param regions       Regions array to match address against, in case
+     *                      the address's page is only partially allowed.
+     * @param allowedMask   Permission bit of pages which are entirely allowed.
+     * @param partialMask   Permission bit of pages which are partially allowed.
+     * @param segment       16bit Real-mode segment of the address to check.
+     * @param offset        16bit Real-mode offset of the address to check.
+     * @return whether or not the access is allowed.
+     */
+    private boolean isAccessAllowed(RealModeMemoryRegion[] regions,
+        byte allowedMask, byte partialMask, short segment, short offset) {
+
+        int linearAddress = RealModeAddress.getLinearAddress(segment, offset);
+        byte permissions = m_permissions[linearAddress >>> PAGE_SHIFT];
+
+        if ((permissions & allowedMask) != 0) {
+            return true;
+        }
+        if ((permissions & partialMask) != 0) {
+            return isAddressInRegions(regions, linearAddress);
+        }
+        return false;
+    }
+
     /**
      * Checks whether or not a given address is within at least a single
      * region in an array of regions.
      * 
-     * @param regions    Regions array to match address against.
-     * @param address    Address to check.
+     * @param regions        Regions array to match address against.
+     * @param linearAddress  Linear address to check.
      * @return whether or not the address is within at least one of the regions.
      */
-    private boolean isAddressInRegions(
-        RealModeMemoryRegion[] regions, RealModeAddress address) {
+    private static boolean isAddressInRegions(
+        RealModeMemoryRegion[] regions, int linearAddress) {
 
         // iterate all regions, attempt to match address
         boolean found = false;
         for (int i = 0; i < regions.length; ++i) {
-            if (regions[i].isInRegion(address)) {
+            if (regions[i].isInRegion(linearAddress)) {
                 found = true;				
                 break;
             }
@@ -102,12 +327,57 @@ public class RestrictedAccessRealModeMemory extends AbstractRealModeMemory {
         return found;		
     }
 
+    /**
+     * Marks the pages covered by the given regions in the permissions map.
+     * 
+     * @param regions       Regions to which access is allowed.
+     * @param allowedMask   Permission bit to set for pages which are entirely
+     *                      within a region.
+     * @param partialMask   Permission bit to set for pages which are only
+     *                      partially within a region.
+     */
+    private void addPermissions(
+        RealModeMemoryRegion[] regions, byte allowedMask, byte partialMask) {
+
+        for (RealModeMemoryRegion region : regions) {
+            final int start = region.getStart().getLinearAddress();
+            final int end = region.getEnd().getLinearAddress();
+
+            for (int page = start >>> PAGE_SHIFT; page <= (end >>> PAGE_SHIFT); ++page) {
+                int pageStart = page << PAGE_SHIFT;
+                int pageEnd = pageStart + PAGE_SIZE - 1;
+
+                if ((start <= pageStart) && (end >= pageEnd)) {
+                    m_permissions[page] |= allowedMask;
+                } else {
+                    m_permissions[page] |= partialMask;
+                }
+            }
+        }
+    }
+
     /** Wrapped RealModeMemory implementation */
     private final RealModeMemory m_memory;
     /** Reading from these regions is allowed */
-    private final RealModeMemoryRegion[] m_readAccessRegions;
+    private RealModeMemoryRegion[] m_readAccessRegions;
     /** Writing to these regions is allowed */
-    private final RealModeMemoryRegion[] m_writeAccessRegions;
+    private RealModeMemoryRegion[] m_writeAccessRegions;
     /** Executing these regions is allowed */	
-    private final RealModeMemoryRegion[] m_executeAccessRegions;
-}
\ No newline at end of file
+    private RealModeMemoryRegion[] m_executeAccessRegions;
+    /** Access permission bits of every page of the memory */
+    private final byte[] m_permissions;
+
+    /** Size of each page in the permissions map */
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int NUM_PAGES = RealModeAddress.MEMORY_SIZE >>> PAGE_SHIFT;
+
+    /** Permission bits of a page which is entirely within a region */
+    private static final byte READ_ALLOWED = 0x01;
+    private static final byte WRITE_ALLOWED = 0x02;
+    private static final byte EXECUTE_ALLOWED = 0x04;
+    /** Permission bits of a page which is only partially within a region */
+    private static final byte READ_PARTIAL = 0x08;
+    private static final byte WRITE_PARTIAL = 0x10;
+    private static final byte EXECUTE_PARTIAL = 0x20;
+}
\ No newline at end of file
@@ -1,82 +1,73 @@
 package il.co.codeguru.corewars8086.utils;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
-import java.util.*;
+import java.util.Arrays;
+import java.util.EventListener;
 
 /**
  * An event multicaster which broadcasts Events to a number of listeners.
+ *
+ * Typed multicasters extend this class and implement their listener
+ * interface by calling every listener in getListeners(). The listeners array
+ * is replaced (never modified) whenever a listener is added or removed, so
+ * events may be broadcast from any thread without locking or allocating, and
+ * listeners may be added or removed while an event is being broadcast (taking
+ * effect from the next event).
+ *
  * @author BS
  */
-public class EventMulticaster {
-    
-    private Class mListenerInterface;
-    private EventListener mProxy;
-    private Set<EventListener> mListeners = new LinkedHashSet<>();
-	private EventListener[] mListenersArr = new EventListener[0];
-    private Set<EventListener> mWaitingListeners = new LinkedHashSet<EventListener>();
-    private boolean isCasting;
+public class EventMulticaster<T extends EventListener> {
 
-    /** Construct a new EventMulticaster for the given listener class.
+    private volatile T[] mListeners;
+
+    /** Construct a new EventMulticaster with no listeners.
+     * @param pNoListeners An empty array of the listener interface.
      */
-    public EventMulticaster(Class pListenerInterface) {
-        if (! EventListener.class.isAssignableFrom(pListenerInterface) ) {
-            throw new IllegalArgumentException("Listener interface must extend java.util.EventListener.");
-        }
-        mListenerInterface = pListenerInterface;
+    public EventMulticaster(T[] pNoListeners) {
+        mListeners = pNoListeners;
     }
-    
+
     /** Add an event listener to the list.
      */
-    public void add(EventListener pListener) {
-    	if (isCasting) {
-    		mWaitingListeners .add(pListener);
-    	} else {
-    		mListeners.add(pListener);
-    	}
-		mListenersArr = mListeners.toArray(new EventListener[mListeners.size()]);
+    public synchronized void add(T pListener) {
+        for (T listener : mListeners) {
+            if (listener.equals(pListener)) {
+                return;
+            }
+        }
+        T[] listeners = Arrays.copyOf(mListeners, mListeners.length + 1);
+        listeners[mListeners.length] = pListener;
+        mListeners = listeners;
+        listenersChanged();
     }
-    
+
     /** Remove an event listener from the list.
      */
-    public void remove(EventListener pListener) {
-        mListeners.remove(pListener);
-		mListenersArr = mListeners.toArray(new EventListener[mListeners.size()]);
+    public synchronized void remove(T pListener) {
+        for (int i = 0; i < mListeners.length; ++i) {
+            if (mListeners[i].equals(pListener)) {
+                T[] listeners = Arrays.copyOf(mListeners, mListeners.length - 1);
+                System.arraycopy(mListeners, i + 1, listeners, i, listeners.length - i);
+                mListeners = listeners;
+                listenersChanged();
+                return;
+            }
+        }
+    }
+
+    /** Get the current listeners, which must not be modified.
+     */
+    public T[] getListeners() {
+        return mListeners;
     }
 
-    /** Get the proxy for this event multicaster. This proxy can then be
-     * used to broadcast events to all the registered event listeners.
+    /** Whether or not there are no listeners at all.
      */
-    public synchronized EventListener getProxy() {
-        if ( mProxy == null ) {
-            ClassLoader lCL = this.getClass().getClassLoader();
-            Class[] lClasses = new Class[] {mListenerInterface};
-            mProxy = (EventListener)Proxy.newProxyInstance(lCL,lClasses,new MulticasterInvocationHandler());
-        }
-        return mProxy;
+    public boolean isEmpty() {
+        return mListeners.length == 0;
     }
-    
-    /** Invokes the given method on each listener registered with the
-     * multicaster.
+
+    /** Called (while synchronized) whenever a listener is added or removed.
      */
-    private class MulticasterInvocationHandler implements InvocationHandler {
-        public Object invoke(Object pProxy, Method pMethod, Object[] pArgs)
-            throws Throwable {
-            
-            isCasting = true;
-			for (EventListener mListener : mListenersArr) {
-				pMethod.invoke(mListener, pArgs);
-			}
-            isCasting = false;
-            if (!mWaitingListeners.isEmpty()) {
-            	// listeners are waiting to be added, add them after multicasting
-            	for (EventListener lis: mWaitingListeners) {
-            		add(lis);
-            	}
-            	mWaitingListeners.clear();
-            }
-            return null;
-        }
-    } 
+    protected void listenersChanged() {
+    }
 }
\ No newline at end of file
@@ -2,31 +2,40 @@ package il.co.codeguru.corewars8086.war;
 
 import il.co.codeguru.corewars8086.cli.Options;
 import il.co.codeguru.corewars8086.memory.MemoryEventListener;
-import il.co.codeguru.corewars8086.utils.EventMulticaster;
+import il.co.codeguru.corewars8086.memory.MemoryEventMulticaster;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class Competition {
 
     /** Maximum number of rounds in a single war. */
     public final static int MAX_ROUND = 200000;
-    private static final String SCORE_FILENAME= "scores.csv";
+
+    /**
+     * Number of consecutive wars run by a single thread when running in
+     * parallel, whose scores are added to the repository together.
+     */
+    private static final int WARS_PER_BATCH = 16;
+
+    /** Number of rounds a headless war runs between checks for an abort */
+    private static final int HEADLESS_ROUNDS_PER_ABORT_CHECK = 1000;
 
     private CompetitionIterator competitionIterator;
 
-    private EventMulticaster competitionEventCaster, memoryEventCaster;
-    private CompetitionEventListener competitionEventListener;
-    private MemoryEventListener memoryEventListener;
+    private final CompetitionEventMulticaster competitionEventCaster;
+    private final MemoryEventMulticaster memoryEventCaster;
 
     private final WarriorRepository warriorRepository;
     
-    private ExecutorService executorService;
-
     private War currentWar;
 
     private int warsPerCombination= 20;
@@ -37,10 +46,23 @@ public class Competition {
     
     private long seed = 0;
 
-    private boolean abort;
+    private volatile boolean abort;
+
+    /** Whether wars run without round events, speed limits or pausing */
+    private boolean headless;
     
     private final Options options;
 
+    /** Statistics of the current competition, if it may stop early */
+    private RankingStatistics rankingStatistics;
+
+    /**
+     * War context of every worker running wars in parallel, by its index.
+     * The workers of every competition reuse the same contexts, so the
+     * contexts' slots in the core file (if used) are reused too.
+     */
+    private final List<WarContext> warContexts = new ArrayList<>();
+
     public Competition(Options options) throws IOException {
         this(true, options);
     }
@@ -48,10 +70,8 @@ public class Competition {
     public Competition(boolean shouldReadWarriorsFile, Options options) throws IOException {
         warriorRepository = new WarriorRepository(shouldReadWarriorsFile, options);
 
-        competitionEventCaster = new EventMulticaster(CompetitionEventListener.class);
-        competitionEventListener = (CompetitionEventListener) competitionEventCaster.getProxy();
-        memoryEventCaster = new EventMulticaster(MemoryEventListener.class);
-        memoryEventListener = (MemoryEventListener) memoryEventCaster.getProxy();
+        competitionEventCaster = new CompetitionEventMulticaster();
+        memoryEventCaster = new MemoryEventMulticaster();
         speed = MAXIMUM_SPEED;
         abort = false;
         
@@ -63,115 +83,178 @@ public class Competition {
         competitionIterator = new CompetitionIterator(
             warriorRepository.getNumberOfGroups(), warriorsPerGroup);
 
+        rankingStatistics = createRankingStatistics();
+
         // run on every possible combination of warrior groups
-        competitionEventListener.onCompetitionStart();
+        competitionEventCaster.onCompetitionStart();
         for (int warCount = 0; warCount < getTotalNumberOfWars(); warCount++) {
             runWar(warriorRepository.createGroupList(competitionIterator.next()), startPaused);
             seed ++;
             if (abort) {
 				        break;
 			      }
+            if (isRankingSettled(warCount + 1)) {
+                break;
+            }
         }
-        competitionEventListener.onCompetitionEnd();
-        warriorRepository.saveScoresToFile(SCORE_FILENAME);
+        competitionEventCaster.onCompetitionEnd();
+        warriorRepository.saveScoresToFile(options.outputFile);
     }
     
     public void runCompetitionInParallel(int warsPerCombination, int warriorsPerGroup, int threads) throws InterruptedException {
       this.warsPerCombination = warsPerCombination;
       competitionIterator = new CompetitionIterator(warriorRepository.getNumberOfGroups(), warriorsPerGroup);
-      competitionEventListener.onCompetitionStart();
-  
-      executorService = Executors.newFixedThreadPool(threads);
-  
-      for (int warCount = 0; warCount < getTotalNumberOfWars(); warCount++) {
-        WarriorGroup[] groups = warriorRepository.createGroupList(competitionIterator.next());
-        int id = warCount;
-        long warSeed = seed++;
-        executorService.submit(() -> {
+      rankingStatistics = createRankingStatistics();
+      competitionEventCaster.onCompetitionStart();
+
+      // war N is seeded with (seed + N) no matter which thread runs it, so
+      // the results are the same for any number of threads
+      int numWars = getTotalNumberOfWars();
+      WarBatches batches = new WarBatches(numWars, seed);
+      seed += numWars;
+
+      // every thread takes the next batch in order, so once the ranking is
+      // settled only the batches which are already running are wasted
+      ExecutorService executorService = Executors.newFixedThreadPool(threads);
+      try {
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; ++i) {
+          WarContext context = getWarContext(i);
+          workers.add(executorService.submit(() -> {
+            while (batches.runNext(context)) {
+            }
+            return null;
+          }));
+        }
+        for (Future<?> worker : workers) {
           try {
-            runWarInParallel(groups, warSeed, id);
-          } catch (Exception e) {
-            throw new RuntimeException(e);
+            worker.get();
+          } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
           }
-        });
-      }
-  
-      executorService.shutdown();
-      boolean finished = executorService.awaitTermination(1, TimeUnit.HOURS);
-  
-      if (!finished) {
-        System.err.println("Note: Competition has timed out after 1h - results may be incorrect.");
+        }
+      } finally {
+        executorService.shutdown();
       }
-      
-      executorService = null;
-  
-      competitionEventListener.onCompetitionEnd();
+      batches.mergeRemaining();
+
+      competitionEventCaster.onCompetitionEnd();
       warriorRepository.saveScoresToFile(options.outputFile);
     }
 
+    /**
+     * Returns the war context of a worker running wars in parallel, which is
+     * created on first use, with the worker's index as its core file slot.
+     * @param worker  Index of the worker.
+     * @return the context.
+     */
+    private WarContext getWarContext(int worker) {
+        while (warContexts.size() <= worker) {
+            warContexts.add(WarContext.create(options, warContexts.size()));
+        }
+        return warContexts.get(worker);
+    }
+
+    /**
+     * @return statistics for stopping the competition once its ranking is
+     *         settled, or null if it should run all of its wars.
+     */
+    private RankingStatistics createRankingStatistics() {
+        if (options.earlyStopConfidence <= 0) {
+            return null;
+        }
+        return new RankingStatistics(warriorRepository.getWarriorGroups(),
+            options.earlyStopConfidence, options.earlyStopTop);
+    }
+
+    /**
+     * Checks whether the competition may stop early, and if so notifies the
+     * listeners. This is only checked after every WARS_PER_BATCH wars, so
+     * both sequential and parallel competitions stop after the same war.
+     *
+     * @param numWars  Number of wars whose results are in the statistics.
+     */
+    private boolean isRankingSettled(int numWars) {
+        if ((rankingStatistics == null) || (numWars % WARS_PER_BATCH != 0) ||
+            !rankingStatistics.isSettled()) {
+            return false;
+        }
+        competitionEventCaster.onRankingSettled(numWars, getTotalNumberOfWars());
+        return true;
+    }
+
     public int getTotalNumberOfWars() {
         return (int) competitionIterator.getNumberOfItems() * warsPerCombination;
     }
 
     public void runWar(WarriorGroup[] warriorGroups,boolean startPaused) throws Exception {
-        currentWar = new War(memoryEventListener, competitionEventListener, startPaused, options);
+        currentWar = new War(memoryEventCaster, competitionEventCaster, startPaused, options);
         currentWar.setSeed(this.seed);
-        competitionEventListener.onWarStart(seed);
+        competitionEventCaster.onWarStart(seed);
         currentWar.loadWarriorGroups(warriorGroups);
 
         // go go go!
         int round = 0;
-        while (round < MAX_ROUND) {
-            competitionEventListener.onRound(round);
+        if (headless) {
+            round = runWarHeadless(currentWar);
+        } else {
+            while (round < MAX_ROUND) {
+                competitionEventCaster.onRound(round);
+
+                competitionEventCaster.onEndRound();
+
+                // apply speed limits
+                if (speed != MAXIMUM_SPEED) {
+                    // note: if speed is 1 (meaning game is paused), this will
+                    // always happen
+                    if (round % speed == 0) {
+                        Thread.sleep(DELAY_UNIT);
+                    }
+
+                    if (speed == 1) { // paused
+                        continue;
+                    }
+                }
 
-            competitionEventListener.onEndRound();
+                //pause
+                while (currentWar.isPaused()) Thread.sleep(DELAY_UNIT);
 
-            // apply speed limits
-            if (speed != MAXIMUM_SPEED) {
-                // note: if speed is 1 (meaning game is paused), this will
-                // always happen
-                if (round % speed == 0) {
-                    Thread.sleep(DELAY_UNIT);
-                }
+                //Single step run - stop next time
+                if (currentWar.isSingleRound())
+                    currentWar.pause();
 
-                if (speed == 1) { // paused
-                    continue;
+                if (currentWar.isOver()) {
+                    break;
                 }
-            }
 
-            //pause
-            while (currentWar.isPaused()) Thread.sleep(DELAY_UNIT);
+                currentWar.nextRound(round);
 
-            //Single step run - stop next time
-            if (currentWar.isSingleRound())
-                currentWar.pause();
-
-            if (currentWar.isOver()) {
-                break;
+                ++round;
             }
-
-            currentWar.nextRound(round);
-
-            ++round;
+            competitionEventCaster.onRound(round);
         }
-        competitionEventListener.onRound(round);
 
         int numAlive = currentWar.getNumRemainingWarriors();
         String names = currentWar.getRemainingWarriorNames();
 
         if (numAlive == 1) { // we have a single winner!
-            competitionEventListener.onWarEnd(CompetitionEventListener.SINGLE_WINNER, names);
-        } else if (round == MAX_ROUND) { // maximum round reached
-            competitionEventListener.onWarEnd(CompetitionEventListener.MAX_ROUND_REACHED, names);
+            competitionEventCaster.onWarEnd(CompetitionEventListener.SINGLE_WINNER, names);
+        } else if ((round == MAX_ROUND) || currentWar.isStalemate()) { // maximum round reached (or would be)
+            competitionEventCaster.onWarEnd(CompetitionEventListener.MAX_ROUND_REACHED, names);
         } else { // user abort
-            competitionEventListener.onWarEnd(CompetitionEventListener.ABORTED, names);
+            competitionEventCaster.onWarEnd(CompetitionEventListener.ABORTED, names);
         }
         currentWar.updateScores(warriorRepository);
+        if (rankingStatistics != null) {
+            ScoreAccumulator warScores = new ScoreAccumulator();
+            currentWar.updateScores(warScores);
+            rankingStatistics.addWar(warriorGroups, warScores);
+        }
         currentWar = null;
     }
   
-  public void runWarInParallel(WarriorGroup[] warriorGroups, long seed, int id) throws Exception {
-    War war = new War(memoryEventListener, competitionEventListener, false, options);
+  public void runWarInParallel(WarriorGroup[] warriorGroups, long seed, ScoreAccumulator scores, WarContext context) throws Exception {
+    War war = new War(memoryEventCaster, competitionEventCaster, false, options, context);
     war.setSeed(seed);
     boolean selectedAsCurrent = false;
     
@@ -183,39 +266,43 @@ public class Competition {
       }
     }
   
-    competitionEventListener.onWarStart(seed);
+    competitionEventCaster.onWarStart(seed);
     war.loadWarriorGroups(warriorGroups);
     
     int round = 0;
-    while (round < MAX_ROUND) {
-      competitionEventListener.onRound(round);
-      competitionEventListener.onEndRound();
+    if (headless) {
+      round = runWarHeadless(war);
+    } else {
+      while (round < MAX_ROUND) {
+        competitionEventCaster.onRound(round);
+        competitionEventCaster.onEndRound();
       
-     if (selectedAsCurrent && speed != MAXIMUM_SPEED) {
-       if (round % speed == 0) {
-         Thread.sleep(DELAY_UNIT);
+       if (selectedAsCurrent && speed != MAXIMUM_SPEED) {
+         if (round % speed == 0) {
+           Thread.sleep(DELAY_UNIT);
+         }
        }
-     }
       
-      if (war.isOver()) {
-        break;
+        if (war.isOver() || abort) {
+          break;
+        }
+      
+        war.nextRound(round);
+        ++round;
       }
       
-      war.nextRound(round);
-      ++round;
+      competitionEventCaster.onRound(round);
     }
     
-    competitionEventListener.onRound(round);
-    
     int numAlive = war.getNumRemainingWarriors();
     String names = war.getRemainingWarriorNames();
     
     if (numAlive == 1) { // we have a single winner!
-      competitionEventListener.onWarEnd(CompetitionEventListener.SINGLE_WINNER, names);
-    } else if (round == MAX_ROUND) { // maximum round reached
-      competitionEventListener.onWarEnd(CompetitionEventListener.MAX_ROUND_REACHED, names);
+      competitionEventCaster.onWarEnd(CompetitionEventListener.SINGLE_WINNER, names);
+    } else if ((round == MAX_ROUND) || war.isStalemate()) { // maximum round reached (or would be)
+      competitionEventCaster.onWarEnd(CompetitionEventListener.MAX_ROUND_REACHED, names);
     } else { // user abort
-      competitionEventListener.onWarEnd(CompetitionEventListener.ABORTED, names);
+      competitionEventCaster.onWarEnd(CompetitionEventListener.ABORTED, names);
     }
     
     if (selectedAsCurrent) {
@@ -224,11 +311,28 @@ public class Competition {
       }
     }
     
-    synchronized (warriorRepository) {
-      war.updateScores(warriorRepository);
+    if (!abort) {
+      war.updateScores(scores);
     }
   }
   
+  /**
+   * Runs a war to its end (or MAX_ROUND) in a tight loop, without any round
+   * events, speed limits or pausing, only checking for an abort every
+   * HEADLESS_ROUNDS_PER_ABORT_CHECK rounds.
+   *
+   * @param war  The war, with its warriors loaded.
+   * @return the round number the war stopped at.
+   */
+  private int runWarHeadless(War war) {
+    int round = 0;
+    while ((round < MAX_ROUND) && !war.isOver() && !abort) {
+      round = war.runRounds(round,
+          Math.min(round + HEADLESS_ROUNDS_PER_ABORT_CHECK, MAX_ROUND));
+    }
+    return round;
+  }
+  
   public int getCurrentWarrior() {
         if (currentWar != null) {
             return currentWar.getCurrentWarrior();
@@ -271,11 +375,16 @@ public class Competition {
 
     public void setAbort(boolean abort) {
         this.abort = abort;
-        
-        if (abort && executorService != null) {
-            executorService.shutdownNow();
-            executorService = null;
-        }
+    }
+
+    /**
+     * Sets whether wars should run headless, i.e. as fast as possible: with
+     * no round events, speed limits or pausing (only war start & end and
+     * warrior birth & death events are sent).
+     * @param headless
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
     }
     
     
@@ -291,4 +400,133 @@ public class Competition {
         return seed;
     }
     
-}
\ No newline at end of file
+
+    /**
+     * The wars of a parallel competition, divided to batches of
+     * WARS_PER_BATCH consecutive wars, which are handed out in order.
+     *
+     * Every batch keeps the scores of each of its wars, which are added to
+     * the repository war by war, in the order of the batches (as soon as all
+     * previous batches are done). The repository therefore sums the very
+     * same scores in the very same order as a sequential competition, so the
+     * final scores do not depend on the number of threads or on which batch
+     * happened to finish first.
+     *
+     * When the competition may stop early, the scores of every war are also
+     * added to the ranking statistics, and once the ranking is settled the
+     * results of all later batches are discarded.
+     */
+    private class WarBatches {
+        WarBatches(int numWars, long firstSeed) {
+            m_numWars = numWars;
+            m_firstSeed = firstSeed;
+            m_warScores = new ScoreAccumulator[
+                (numWars + WARS_PER_BATCH - 1) / WARS_PER_BATCH][];
+            m_warGroups = new WarriorGroup[m_warScores.length][][];
+        }
+
+        /**
+         * Runs the next batch which was not handed out yet, unless the
+         * competition is aborted or its ranking is settled.
+         * @param context  Context of the calling worker's wars.
+         * @return whether or not a batch was run.
+         */
+        boolean runNext(WarContext context) throws Exception {
+            if (abort || m_settled) {
+                return false;
+            }
+            int batch = m_nextBatch.getAndIncrement();
+            if (batch >= m_warScores.length) {
+                return false;
+            }
+            run(batch, context);
+            return true;
+        }
+
+        /**
+         * Runs all the wars of a batch, unless the competition is aborted.
+         * @param batch    Index of the batch.
+         * @param context  Context of the batch's wars.
+         */
+        private void run(int batch, WarContext context) throws Exception {
+            int firstWar = batch * WARS_PER_BATCH;
+            int lastWar = Math.min(firstWar + WARS_PER_BATCH, m_numWars);
+            ScoreAccumulator[] warScores = new ScoreAccumulator[lastWar - firstWar];
+            WarriorGroup[][] warGroups = null;
+            if (rankingStatistics != null) {
+                warGroups = new WarriorGroup[lastWar - firstWar][];
+            }
+
+            for (int war = firstWar; (war < lastWar) && !abort && !m_settled; ++war) {
+                WarriorGroup[] groups =
+                    warriorRepository.createGroupList(competitionIterator.get(war));
+                ScoreAccumulator scores = new ScoreAccumulator();
+                runWarInParallel(groups, m_firstSeed + war, scores, context);
+                warScores[war - firstWar] = scores;
+                if (warGroups != null) {
+                    warGroups[war - firstWar] = groups;
+                }
+            }
+
+            synchronized (warriorRepository) {
+                m_warScores[batch] = warScores;
+                m_warGroups[batch] = warGroups;
+                while ((m_nextBatchToMerge < m_warScores.length) &&
+                    (m_warScores[m_nextBatchToMerge] != null) && !m_settled) {
+                    merge(m_nextBatchToMerge++);
+                }
+            }
+        }
+
+        /**
+         * Adds the results of a batch to the repository (and statistics).
+         * @param batch  Index of the batch.
+         */
+        private void merge(int batch) {
+            ScoreAccumulator[] warScores = m_warScores[batch];
+            for (int i = 0; i < warScores.length; ++i) {
+                if (warScores[i] != null) {
+                    warScores[i].addTo(warriorRepository);
+                    if ((rankingStatistics != null) && !abort) {
+                        rankingStatistics.addWar(m_warGroups[batch][i], warScores[i]);
+                    }
+                }
+            }
+            if ((rankingStatistics != null) && !abort &&
+                isRankingSettled(Math.min((batch + 1) * WARS_PER_BATCH, m_numWars))) {
+                m_settled = true;
+            }
+            m_warScores[batch] = null;
+            m_warGroups[batch] = null;
+        }
+
+        /**
+         * Adds the scores of batches which could not be merged in order
+         * because an earlier batch never ran (the competition was aborted).
+         */
+        void mergeRemaining() {
+            synchronized (warriorRepository) {
+                for (; (m_nextBatchToMerge < m_warScores.length) && !m_settled; ++m_nextBatchToMerge) {
+                    if (m_warScores[m_nextBatchToMerge] != null) {
+                        merge(m_nextBatchToMerge);
+                    }
+                }
+            }
+        }
+
+        /** Number of wars in the competition */
+        private final int m_numWars;
+        /** Seed of the first war */
+        private final long m_firstSeed;
+        /** Scores of every war of every finished batch, until added to the repository */
+        private final ScoreAccumulator[][] m_warScores;
+        /** Groups fighting in every war of every finished batch (if needed for the statistics) */
+        private final WarriorGroup[][][] m_warGroups;
+        /** Index of the next batch to run */
+        private final AtomicInteger m_nextBatch = new AtomicInteger();
+        /** Index of the next batch whose scores should be added */
+        private int m_nextBatchToMerge;
+        /** Whether or not the ranking is settled (so no more wars are needed) */
+        private volatile boolean m_settled;
+    }
+}
\ No newline at end of file
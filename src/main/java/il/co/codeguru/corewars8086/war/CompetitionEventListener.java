@@ -49,6 +49,24 @@ public interface CompetitionEventListener extends EventListener  {
     void onCompetitionStart();
 
     void onCompetitionEnd();
+
+    /**
+     * Called when a competition stops early because its ranking is settled
+     * (see Options.earlyStopConfidence), right before onCompetitionEnd().
+     * @param numWars    Number of wars whose results were counted.
+     * @param totalWars  Number of wars in the whole competition.
+     */
+    default void onRankingSettled(int numWars, int totalWars) {
+    }
     
     void onEndRound();
+
+    /**
+     * @return whether or not onRound() and onEndRound() should be called.
+     *         Listeners which ignore them should return false, so that wars
+     *         don't need to broadcast two events every round.
+     */
+    default boolean wantsRoundEvents() {
+        return true;
+    }
 }
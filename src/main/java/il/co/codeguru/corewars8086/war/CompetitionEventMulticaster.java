@@ -0,0 +1,90 @@
+package il.co.codeguru.corewars8086.war;
+
+import il.co.codeguru.corewars8086.utils.EventMulticaster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Broadcasts competition events to a number of listeners.
+ *
+ * Round events are only sent to the listeners which want them, so when no
+ * such listener is registered (e.g. in headless mode) a round costs nothing
+ * but an empty loop.
+ */
+class CompetitionEventMulticaster extends EventMulticaster<CompetitionEventListener>
+    implements CompetitionEventListener {
+
+    CompetitionEventMulticaster() {
+        super(new CompetitionEventListener[0]);
+    }
+
+    @Override
+    protected void listenersChanged() {
+        List<CompetitionEventListener> roundListeners = new ArrayList<>();
+        for (CompetitionEventListener listener : getListeners()) {
+            if (listener.wantsRoundEvents()) {
+                roundListeners.add(listener);
+            }
+        }
+        m_roundListeners = roundListeners.toArray(new CompetitionEventListener[0]);
+    }
+
+    public void onWarStart(long seed) {
+        for (CompetitionEventListener listener : getListeners()) {
+            listener.onWarStart(seed);
+        }
+    }
+
+    public void onWarEnd(int reason, String winners) {
+        for (CompetitionEventListener listener : getListeners()) {
+            listener.onWarEnd(reason, winners);
+        }
+    }
+
+    public void onRound(int round) {
+        for (CompetitionEventListener listener : m_roundListeners) {
+            listener.onRound(round);
+        }
+    }
+
+    public void onWarriorBirth(String warriorName) {
+        for (CompetitionEventListener listener : getListeners()) {
+            listener.onWarriorBirth(warriorName);
+        }
+    }
+
+    public void onWarriorDeath(String warriorName, String reason) {
+        for (CompetitionEventListener listener : getListeners()) {
+            listener.onWarriorDeath(warriorName, reason);
+        }
+    }
+
+    public void onCompetitionStart() {
+        for (CompetitionEventListener listener : getListeners()) {
+            listener.onCompetitionStart();
+        }
+    }
+
+    public void onCompetitionEnd() {
+        for (CompetitionEventListener listener : getListeners()) {
+            listener.onCompetitionEnd();
+        }
+    }
+
+    public void onRankingSettled(int numWars, int totalWars) {
+        for (CompetitionEventListener listener : getListeners()) {
+            listener.onRankingSettled(numWars, totalWars);
+        }
+    }
+
+    public void onEndRound() {
+        for (CompetitionEventListener listener : m_roundListeners) {
+            listener.onEndRound();
+        }
+    }
+
+    /** The listeners which want round events */
+    private volatile CompetitionEventListener[] m_roundListeners =
+        new CompetitionEventListener[0];
+}
@@ -1,40 +1,96 @@
 package il.co.codeguru.corewars8086.war;
 
-import org.apache.commons.math3.random.RandomDataGenerator;
+import org.apache.commons.math3.util.ArithmeticUtils;
 import org.apache.commons.math3.util.CombinatoricsUtils;
 
-import java.util.Iterator;
+import java.math.BigInteger;
 
-public class CompetitionIterator implements Iterator<int[]> {
-	private final RandomDataGenerator rnd;
-	private int[] counters;
+/**
+ * Enumerates the groups fighting in every war of a competition.
+ *
+ * Wars go over all the combinations of groups, and then start over, so after
+ * N * getNumberOfItems() wars every combination has fought exactly N times.
+ * The groups of a war depend only on the war's index, so any range of wars
+ * can be run (e.g. by another thread) on its own.
+ *
+ * The combinations are not visited in lexicographic order, but in steps of
+ * about 0.618 of their number, so that every prefix of the wars (e.g. of a
+ * competition which is stopped early) is spread over all the groups instead
+ * of starting with all the combinations of the first group.
+ */
+public class CompetitionIterator {
+	private long index;
 	private int numItems;
 	private final int groupSize;
+	private final long numCombinations;
+	private final long stride;
 
+    /**
+     * @param numItems   Number of groups to choose from.
+     * @param groupSize  Number of groups fighting in every war (if there are
+     *                   fewer groups, all of them fight in every war).
+     */
     public CompetitionIterator(int numItems, int groupSize) {
-        assert numItems >= groupSize;
         this.numItems = numItems;
-        this.groupSize = groupSize;
-        counters = new int[groupSize];
-        rnd = new RandomDataGenerator();
+        this.groupSize = Math.min(groupSize, numItems);
+        numCombinations = CombinatoricsUtils.binomialCoefficient(numItems, this.groupSize);
+
+        // the stride must be coprime to the number of combinations, so that
+        // every combination is visited once in each cycle
+        long step = Math.max(1, (long)(numCombinations * 0.6180339887));
+        while (ArithmeticUtils.gcd(step, numCombinations) != 1) {
+            ++step;
+        }
+        stride = step;
     }
 
     /**
-     * Returns the next group in the sequence
+     * Returns the groups fighting in the next war (see get()). The sequence
+     * never ends: it starts over after getNumberOfItems() wars.
      */
     public int[] next()
     {
-		return rnd.nextPermutation(numItems, Math.min(groupSize, numItems));
+		return get(index++);
     }
 
-	public boolean hasNext() {
-        return counters[0] != -1;
+    /**
+     * Returns the groups fighting in a given war, in ascending order (the war
+     * itself randomizes their load order).
+     * Safe to call from several threads at once.
+     *
+     * @param warIndex  Index of the war in the competition.
+     */
+    public int[] get(long warIndex) {
+        long rank = multiplyMod(warIndex % numCombinations, stride, numCombinations);
+        int[] groups = new int[groupSize];
+
+        // find the rank-th combination: skip all the combinations starting
+        // with a smaller group, as long as there are at least rank of them
+        int item = 0;
+        for (int i = 0; i < groupSize; ++i, ++item) {
+            long numStartingWithItem;
+            while ((numStartingWithItem = CombinatoricsUtils.binomialCoefficient(
+                numItems - item - 1, groupSize - i - 1)) <= rank) {
+                rank -= numStartingWithItem;
+                ++item;
+            }
+            groups[i] = item;
+        }
+        return groups;
     }
-    
-    public void remove() {
+
+    /**
+     * @return (a * b) % modulus, for non-negative a and b.
+     */
+    private static long multiplyMod(long a, long b, long modulus) {
+        if ((a < Integer.MAX_VALUE) && (b < Integer.MAX_VALUE)) {
+            return (a * b) % modulus;
+        }
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+            .mod(BigInteger.valueOf(modulus)).longValue();
     }
 
     public long getNumberOfItems() {
-		return CombinatoricsUtils.binomialCoefficient(numItems, counters.length);
+		return numCombinations;
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package il.co.codeguru.corewars8086.war;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the mean and variance of every group's score per war, to decide
+ * whether the ranking of the groups is already settled.
+ *
+ * The ranking is settled once every pair of adjacent groups in it (or in its
+ * top N) is separated by a one-sided z-test at the requested confidence,
+ * corrected for the number of tested pairs. Since the test is repeated as
+ * wars complete, the confidence is only approximate.
+ */
+class RankingStatistics {
+
+    /** Minimum number of wars every group must fight before testing */
+    private static final int MIN_WARS_PER_GROUP = 30;
+
+    /**
+     * Constructor.
+     * @param groups      All the ranked groups.
+     * @param confidence  Required confidence of the ranking (e.g. 0.99).
+     * @param top         Number of top groups whose ranking should be
+     *                    settled, or 0 for all the groups.
+     */
+    RankingStatistics(List<WarriorGroup> groups, double confidence, int top) {
+        m_groupIndices = new IdentityHashMap<>();
+        for (int i = 0; i < groups.size(); ++i) {
+            m_groupIndices.put(groups.get(i), i);
+        }
+        m_numWars = new int[groups.size()];
+        m_sums = new double[groups.size()];
+        m_sumsOfSquares = new double[groups.size()];
+
+        m_numPairs = (top > 0) ?
+            Math.min(top, groups.size() - 1) : groups.size() - 1;
+        m_minZ = new NormalDistribution().inverseCumulativeProbability(
+            1 - (1 - confidence) / Math.max(1, m_numPairs));
+    }
+
+    /**
+     * Adds the results of a war.
+     * @param warriorGroups  The groups which fought in the war.
+     * @param scores         The scores of the war.
+     */
+    void addWar(WarriorGroup[] warriorGroups, ScoreAccumulator scores) {
+        for (WarriorGroup group : warriorGroups) {
+            Integer index = m_groupIndices.get(group);
+            if (index == null) { // zombies
+                continue;
+            }
+            double score = 0;
+            for (WarriorData warrior : group.getWarriors()) {
+                score += scores.getScore(warrior.getName());
+            }
+            ++m_numWars[index];
+            m_sums[index] += score;
+            m_sumsOfSquares[index] += score * score;
+        }
+    }
+
+    /**
+     * @return whether or not the ranking is settled.
+     */
+    boolean isSettled() {
+        if (m_numPairs < 1) {
+            return true;
+        }
+        for (int numWars : m_numWars) {
+            if (numWars < MIN_WARS_PER_GROUP) {
+                return false;
+            }
+        }
+
+        Integer[] ranking = new Integer[m_numWars.length];
+        for (int i = 0; i < ranking.length; ++i) {
+            ranking[i] = i;
+        }
+        Arrays.sort(ranking, Comparator.comparingDouble(i -> -getMean(i)));
+
+        for (int i = 0; i < m_numPairs; ++i) {
+            int higher = ranking[i];
+            int lower = ranking[i + 1];
+            double difference = getMean(higher) - getMean(lower);
+            double error = Math.sqrt(getVarianceOfMean(higher) +
+                getVarianceOfMean(lower));
+            if ((difference <= 0) ||
+                ((error > 0) && (difference / error < m_minZ))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double getMean(int group) {
+        return m_sums[group] / m_numWars[group];
+    }
+
+    private double getVarianceOfMean(int group) {
+        double mean = getMean(group);
+        double variance = (m_sumsOfSquares[group] - m_numWars[group] * mean * mean) /
+            (m_numWars[group] - 1);
+        return Math.max(0, variance) / m_numWars[group];
+    }
+
+    /** Index of every ranked group */
+    private final Map<WarriorGroup, Integer> m_groupIndices;
+    /** Number of wars every group fought */
+    private final int[] m_numWars;
+    /** Sum of every group's scores */
+    private final double[] m_sums;
+    /** Sum of the squares of every group's scores */
+    private final double[] m_sumsOfSquares;
+    /** Number of adjacent pairs at the top of the ranking which are tested */
+    private final int m_numPairs;
+    /** Minimum z-score of every tested pair */
+    private final double m_minZ;
+}
@@ -0,0 +1,46 @@
+package il.co.codeguru.corewars8086.war;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the scores of a war, so they can be added to the warrior repository
+ * later (e.g. once all the previous wars of a parallel competition are done).
+ *
+ * Scores are added to the repository in the order their warriors scored, as
+ * War.updateScores(WarriorRepository) would have added them, so adding the
+ * wars' scores in war order gives exactly the totals of a sequential run.
+ */
+class ScoreAccumulator {
+
+    /**
+     * Adds a score to a warrior.
+     * @param name   Warrior's name.
+     * @param value  Score to add.
+     */
+    public void addScore(String name, float value) {
+        m_scores.merge(name, value, Float::sum);
+    }
+
+    /**
+     * @param name  Warrior's name.
+     * @return the warrior's accumulated score.
+     */
+    public float getScore(String name) {
+        Float score = m_scores.get(name);
+        return (score != null) ? score : 0;
+    }
+
+    /**
+     * Adds the accumulated scores to the repository.
+     * @param repository  Repository to add the scores to.
+     */
+    public void addTo(WarriorRepository repository) {
+        for (Map.Entry<String, Float> entry : m_scores.entrySet()) {
+            repository.addScore(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /** Accumulated score of every warrior which scored, by name */
+    private final Map<String, Float> m_scores = new LinkedHashMap<>();
+}
@@ -0,0 +1,20 @@
+package il.co.codeguru.corewars8086.war;
+
+import il.co.codeguru.corewars8086.utils.EventMulticaster;
+
+/**
+ * Broadcasts score events to a number of listeners.
+ */
+class ScoreEventMulticaster extends EventMulticaster<ScoreEventListener>
+    implements ScoreEventListener {
+
+    ScoreEventMulticaster() {
+        super(new ScoreEventListener[0]);
+    }
+
+    public void scoreChanged(String name, float addedValue, int groupIndex, int subIndex) {
+        for (ScoreEventListener listener : getListeners()) {
+            listener.scoreChanged(name, addedValue, groupIndex, subIndex);
+        }
+    }
+}
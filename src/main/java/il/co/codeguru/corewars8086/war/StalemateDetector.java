@@ -0,0 +1,179 @@
+package il.co.codeguru.corewars8086.war;
+
+import il.co.codeguru.corewars8086.cpu.CpuState;
+import il.co.codeguru.corewars8086.memory.RealModeMemoryImpl;
+
+import java.util.Arrays;
+
+/**
+ * Detects wars which reached a stalemate, i.e. whose whole state repeats
+ * itself, so that no warrior can die anymore and the war may end right away
+ * with the same result as if it were run until Competition.MAX_ROUND.
+ *
+ * The state of the war (the registers of every living warrior and the core)
+ * is compared against a snapshot of it, at rounds in which the warriors'
+ * Energy is decremented, so the state repeating itself is also in the same
+ * phase of the Energy decrements. Snapshots are taken at exponentially
+ * growing intervals (as in Brent's cycle detection algorithm), so that a
+ * cycle of any length is eventually found. The first snapshot is only taken
+ * after a while, so that short wars never pay for copying the core.
+ *
+ * The state repeating itself only proves a cycle if no random decision was
+ * made since the snapshot. A warrior runs an extra opcode at random, unless
+ * its speed is either 0 or the maximal speed, so the snapshot is discarded
+ * whenever such a decision is made, and only retaken once the warriors play
+ * deterministically between checks (e.g. their Energy ran out).
+ *
+ * Comparing the core requires copying all of it. Once such a comparison
+ * fails (e.g. the warriors' registers cycle while they keep bombing), the
+ * core's hash is maintained for the rest of the war and compared first, so
+ * the core is only copied again when the hashes match. Wars which never get
+ * that far do not pay for hashing every write.
+ */
+final class StalemateDetector {
+
+    /**
+     * Constructor.
+     * @param war      The war whose state should be checked.
+     * @param context  The war's context, whose buffers hold the snapshot.
+     */
+    StalemateDetector(War war, WarContext context) {
+        m_war = war;
+        m_context = context;
+    }
+
+    /**
+     * Should be called whenever a random decision is made.
+     */
+    void onRandomDecision() {
+        m_isRandomDecisionMade = true;
+    }
+
+    /**
+     * Checks the state of the war against the snapshot.
+     * @param round  The current round number (should be a multiple of the
+     *               rounds between Energy decrements).
+     */
+    void check(int round) {
+        if (m_isStalemate) {
+            return;
+        }
+        if (m_isRandomDecisionMade) {
+            // the state may repeat itself by chance, start over
+            m_isRandomDecisionMade = false;
+            m_snapshotRound = -1;
+            m_interval = INITIAL_INTERVAL;
+            return;
+        }
+        if (m_snapshotRound < 0) {
+            if (round >= FIRST_SNAPSHOT_ROUND) {
+                takeSnapshot(round);
+            }
+            return;
+        }
+        if (isSameAsSnapshot()) {
+            m_isStalemate = true;
+        } else if (round - m_snapshotRound >= m_interval) {
+            takeSnapshot(round);
+            m_interval *= 2;
+        }
+    }
+
+    /**
+     * @return whether or not the war was found to be in a stalemate.
+     */
+    boolean isStalemate() {
+        return m_isStalemate;
+    }
+
+    /**
+     * Takes a snapshot of the war's state.
+     * @param round  The current round number.
+     */
+    private void takeSnapshot(int round) {
+        int numWarriors = m_war.getNumWarriors();
+        if (m_states == null) {
+            m_states = new CpuState[numWarriors];
+            for (int i = 0; i < numWarriors; ++i) {
+                m_states[i] = new CpuState();
+            }
+            m_isAlive = new boolean[numWarriors];
+            byte[][] buffers = m_context.getCoreBuffers();
+            m_core = buffers[0];
+            m_currentCore = buffers[1];
+        }
+
+        for (int i = 0; i < numWarriors; ++i) {
+            Warrior warrior = m_war.getWarrior(i);
+            m_isAlive[i] = warrior.isAlive();
+            m_states[i].copyFrom(warrior.getCpuState());
+        }
+        RealModeMemoryImpl core = m_war.getMemory();
+        core.copyWindow(m_core);
+        if (core.isHashing()) {
+            m_coreHash = core.getHash();
+        }
+
+        m_snapshotRound = round;
+    }
+
+    /**
+     * @return whether or not the war's state is the same as the snapshot.
+     */
+    private boolean isSameAsSnapshot() {
+        for (int i = 0; i < m_states.length; ++i) {
+            Warrior warrior = m_war.getWarrior(i);
+            if (warrior.isAlive() != m_isAlive[i]) {
+                return false;
+            }
+            if (warrior.isAlive() && !warrior.getCpuState().isSameAs(m_states[i])) {
+                return false;
+            }
+        }
+
+        RealModeMemoryImpl core = m_war.getMemory();
+        if (core.isHashing() && (core.getHash() != m_coreHash)) {
+            return false;
+        }
+        core.copyWindow(m_currentCore);
+        if (Arrays.equals(m_core, m_currentCore)) {
+            return true;
+        }
+        if (!core.isHashing()) {
+            // filter the following comparisons by the core's hash
+            core.setHashing(true);
+            m_coreHash = core.getHash(m_core);
+        }
+        return false;
+    }
+
+    /** Round of the first snapshot (most wars end before it) */
+    private static final int FIRST_SNAPSHOT_ROUND = 1000;
+    /** Initial number of rounds between snapshots */
+    private static final int INITIAL_INTERVAL = 1000;
+
+    /** The war whose state is checked */
+    private final War m_war;
+    /** The war's context */
+    private final WarContext m_context;
+
+    /** Registers of every warrior in the snapshot */
+    private CpuState[] m_states;
+    /** Whether or not every warrior is alive in the snapshot */
+    private boolean[] m_isAlive;
+    /** The core in the snapshot */
+    private byte[] m_core;
+    /** Hash of the core in the snapshot (if the core's hash is maintained) */
+    private long m_coreHash;
+    /** Used to compare the current core with the snapshot */
+    private byte[] m_currentCore;
+
+    /** Round in which the snapshot was taken (or -1 if not taken yet) */
+    private int m_snapshotRound = -1;
+    /** Number of rounds after which the next snapshot is taken */
+    private int m_interval = INITIAL_INTERVAL;
+    /** Whether or not a random decision was made since the snapshot */
+    private boolean m_isRandomDecisionMade;
+    /** Whether or not the war was found to be in a stalemate */
+    private boolean m_isStalemate;
+}
@@ -9,8 +9,8 @@ import il.co.codeguru.corewars8086.memory.RealModeMemoryImpl;
 import il.co.codeguru.corewars8086.utils.Unsigned;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
 
 /**
@@ -31,7 +31,27 @@ public class War {
     /** Arena is filled with this byte */
     private final static byte ARENA_BYTE = (byte)0xCC;
     /** Maximum number of warriors in a fight */
-    private final static int MAX_WARRIORS = 20;
+    final static int MAX_WARRIORS = 20;
+    /** Arena's initial data */
+    private final static byte[] ARENA_TEMPLATE = new byte[ARENA_SIZE];
+    static {
+        Arrays.fill(ARENA_TEMPLATE, ARENA_BYTE);
+    }
+    /** Stacks & shared memory are allocated right after the Arena */
+    private final static int ALLOCATIONS_START = RealModeAddress.PARAGRAPH_SIZE *
+        (ARENA_SEGMENT + RealModeAddress.PARAGRAPHS_IN_SEGMENT);
+    /**
+     * Maximum size of all allocations in a single war (every warrior may also
+     * write to the byte at its initial SS:SP, right after its stack).
+     */
+    private final static int MAX_ALLOCATIONS_SIZE =
+        MAX_WARRIORS * (STACK_SIZE + GROUP_SHARED_MEMORY_SIZE) + 1;
+    /**
+     * Window of the core which is actually used (the Arena & allocations), so
+     * the rest of the core need not be mapped.
+     */
+    final static int CORE_START = ARENA_SEGMENT * RealModeAddress.PARAGRAPH_SIZE;
+    final static int CORE_SIZE = ALLOCATIONS_START + MAX_ALLOCATIONS_SIZE - CORE_START;
     /** Maximum attempts to load a warrior to the Arena */
     private final static int MAX_LOADING_TRIES = 100;
     /** Minimum initial space (in bytes) between loaded warriors */
@@ -50,6 +70,8 @@ public class War {
     private int m_nextFreeAddress;
     /** The 'physical' memory core */
     private RealModeMemoryImpl m_core;
+    /** Holds the core & warriors, which may be reused by other wars */
+    private final WarContext m_context;
 
     /** The number of the current warrior */
     private int m_currentWarrior;
@@ -57,6 +79,9 @@ public class War {
     /** The listener for war events */
     private CompetitionEventListener m_warListener;
 
+    /** Ends the war once its state repeats itself (null if disabled) */
+    private final StalemateDetector m_stalemateDetector;
+
     private final Options options;
 
     /**
@@ -67,21 +92,38 @@ public class War {
                CompetitionEventListener warListener,
                boolean startPaused,
                Options options) {
+        this(memoryListener, warListener, startPaused, options,
+            WarContext.create(options, 0));
+    }
+
+    /**
+     * Constructor.
+     * Reuses the core & warriors of a previous war run in the given context,
+     * and (re)fills the Arena with its initial data. 
+     */
+    public War(MemoryEventListener memoryListener,
+               CompetitionEventListener warListener,
+               boolean startPaused,
+               Options options,
+               WarContext context) {
         this.options = options;
+        rand = new WarRandom(options.fastRandom);
+        m_stalemateDetector =
+            options.detectStalemates ? new StalemateDetector(this, context) : null;
     	isPaused = startPaused;
         m_warListener = warListener;
+        m_context = context;
         m_warriors = new Warrior[MAX_WARRIORS];
         m_numWarriors = 0;
         m_numWarriorsAlive = 0;
-        m_core = new RealModeMemoryImpl();
-        m_nextFreeAddress = RealModeAddress.PARAGRAPH_SIZE *
-            (ARENA_SEGMENT + RealModeAddress.PARAGRAPHS_IN_SEGMENT);
-
-        // initialize arena
-        for (int offset = 0; offset < ARENA_SIZE; ++offset) {
-            RealModeAddress tmp = new RealModeAddress(ARENA_SEGMENT, (short)offset);
-            m_core.writeByte(tmp, ARENA_BYTE);			
-        }
+        m_core = context.getCore();
+        m_nextFreeAddress = ALLOCATIONS_START;
+
+        // initialize arena, and clear whatever a previous war has allocated
+        m_core.setListener(null);
+        m_core.setHashing(false); // until a StalemateDetector needs it
+        m_core.load(ARENA_SEGMENT * RealModeAddress.PARAGRAPH_SIZE, ARENA_TEMPLATE);
+        m_core.clear(ALLOCATIONS_START, MAX_ALLOCATIONS_SIZE);
 
         isSingleRound = false;
         
@@ -146,13 +188,42 @@ public class War {
                 }
             }
         }
+
+        // look for a stalemate before the next Energy decrement
+        if ((m_stalemateDetector != null) &&
+            (((round + 1) % DECELERATION_ROUNDS) == 0)) {
+            m_stalemateDetector.check(round + 1);
+        }
+    }
+
+    /**
+     * Runs consecutive rounds of the war until it is over, without any
+     * events but those of the warriors' deaths (e.g. in headless mode).
+     * @param round     The first round number.
+     * @param endRound  Round number to stop at, if the war isn't over by then.
+     * @return the round number the war stopped at.
+     */
+    public int runRounds(int round, int endRound) {
+        while ((round < endRound) && !isOver()) {
+            nextRound(round);
+            ++round;
+        }
+        return round;
     }
 
     /**
      * @return whether or not the War is over.
      */
     public boolean isOver() {
-        return (m_numWarriorsAlive < 2);
+        return (m_numWarriorsAlive < 2) || isStalemate();
+    }
+
+    /**
+     * @return whether or not the War was found to be in a stalemate, i.e.
+     *         would end with the same warriors alive if it kept running.
+     */
+    public boolean isStalemate() {
+        return (m_stalemateDetector != null) && m_stalemateDetector.isStalemate();
     }
 	
     /**
@@ -192,6 +263,9 @@ public class War {
         int energy = Unsigned.unsignedShort(warrior.getEnergy());
         int speed = calculateWarriorSpeed(energy);
 
+        if ((m_stalemateDetector != null) && (speed > 0) && (speed < MAX_SPEED)) {
+            m_stalemateDetector.onRandomDecision();
+        }
         return (rand.nextInt(MAX_SPEED) < speed);
     }
 
@@ -211,11 +285,9 @@ public class War {
      * @return the warrior's current speed,
      */
     private int calculateWarriorSpeed(int energy) {
-        if (energy == 0) {
-            return 0;
-        } else {
-            return Math.min(MAX_SPEED, 1 + (int)(Math.log(energy) / Math.log(2)));
-        }
+        // 1+Log2(Energy) rounded down is the number of significant bits in
+        // Energy (which is also 0 when Energy is 0)
+        return Math.min(MAX_SPEED, 32 - Integer.numberOfLeadingZeros(energy));
     }
 	
     private void loadWarriorGroup(WarriorGroup warriorGroup) throws Exception {
@@ -239,21 +311,22 @@ public class War {
             RealModeAddress initialStack =
                 new RealModeAddress(stackMemory.getSegment(), STACK_SIZE);
 
-            m_warriors[m_numWarriors++] = new Warrior(
+            m_warriors[m_numWarriors] = m_context.getWarrior(
+                m_numWarriors,
                 warriorName,
                 warriorData.length,
-                m_core,
                 loadAddress,
                 initialStack,
                 groupSharedMemory,
                 GROUP_SHARED_MEMORY_SIZE,
                 warrior.getType()
             );
+            ++m_numWarriors;
 
             // load warrior to arena
             for (int offset = 0; offset < warriorData.length; ++offset) {
-                RealModeAddress tmp = new RealModeAddress(ARENA_SEGMENT, (short)(loadOffset + offset));
-                m_core.writeByte(tmp, warriorData[offset]);			
+                m_core.writeByte(ARENA_SEGMENT, (short)(loadOffset + offset),
+                    warriorData[offset]);
             }
             ++m_numWarriorsAlive;
 			++m_currentWarrior;
@@ -388,8 +461,23 @@ public class War {
             }*/
     	}
     }
-    
-    private Random rand = new Random();
+
+    /**
+     * Updates the scores in a given accumulator, as in
+     * {@link #updateScores(WarriorRepository)}.
+     */
+    void updateScores(ScoreAccumulator scores) {
+        float score = (float)1.0 / m_numWarriorsAlive;
+        for (int i = 0; i < m_numWarriors; ++i) {
+            Warrior warrior = m_warriors[i];
+            if (warrior.isAlive()) {
+                scores.addScore(warrior.getName(), score);
+            }
+        }
+    }
+
+    /** Decides where warriors are loaded & when they run extra opcodes */
+    private final WarRandom rand;
     
     private boolean isSingleRound;
     private boolean isPaused;
@@ -425,4 +513,4 @@ public class War {
     }
     
     
-}
\ No newline at end of file
+}
\ No newline at end of file
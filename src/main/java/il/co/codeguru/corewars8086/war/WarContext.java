@@ -0,0 +1,126 @@
+package il.co.codeguru.corewars8086.war;
+
+import il.co.codeguru.corewars8086.cli.Options;
+import il.co.codeguru.corewars8086.memory.ArrayMemoryStorage;
+import il.co.codeguru.corewars8086.memory.ByteBufferMemoryStorage;
+import il.co.codeguru.corewars8086.memory.MemoryStorage;
+import il.co.codeguru.corewars8086.memory.RealModeAddress;
+import il.co.codeguru.corewars8086.memory.RealModeMemoryImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Holds the objects a War needs (the core memory and the warriors), so they
+ * can be reused by consecutive wars instead of being allocated for every war.
+ * 
+ * A context may only be used by a single War at a time, so every thread
+ * running wars should have a context of its own.
+ */
+public class WarContext {
+
+    /**
+     * Constructor.
+     */
+    public WarContext() {
+        this(new RealModeMemoryImpl(War.CORE_START, War.CORE_SIZE));
+    }
+
+    /**
+     * Constructor.
+     * @param core  The core memory, mapping (at least) the addresses
+     *              War.CORE_START to War.CORE_START + War.CORE_SIZE.
+     */
+    public WarContext(RealModeMemoryImpl core) {
+        m_core = core;
+        m_warriors = new Warrior[War.MAX_WARRIORS];
+    }
+
+    /**
+     * Creates a context as specified by the given options.
+     * @param options  Options of the run.
+     * @param slot     Index of the context's core in the core file, if used
+     *                 (contexts used at the same time need different slots).
+     * @return the context.
+     * @throws UncheckedIOException  if the core file could not be mapped.
+     */
+    public static WarContext create(Options options, int slot) {
+        MemoryStorage storage;
+        if ((options.coreFile != null) && !options.coreFile.isEmpty()) {
+            try {
+                storage = ByteBufferMemoryStorage.map(
+                    new File(options.coreFile), slot, War.CORE_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else if (options.directCore) {
+            storage = ByteBufferMemoryStorage.allocateDirect(War.CORE_SIZE);
+        } else {
+            storage = new ArrayMemoryStorage(War.CORE_SIZE);
+        }
+        return new WarContext(new RealModeMemoryImpl(War.CORE_START, storage));
+    }
+
+    /**
+     * @return the core memory.
+     */
+    public RealModeMemoryImpl getCore() {
+        return m_core;
+    }
+
+    /**
+     * Returns two buffers, each large enough to hold a copy of the core's
+     * window (they are allocated on first use), e.g. to look for a stalemate.
+     * @return the buffers.
+     */
+    byte[][] getCoreBuffers() {
+        if (m_coreBuffers == null) {
+            int size = m_core.getWindowSize();
+            m_coreBuffers = new byte[][] { new byte[size], new byte[size] };
+        }
+        return m_coreBuffers;
+    }
+
+    /**
+     * Returns the warrior at the given index of the war, reinitialized with
+     * the given parameters (a new Warrior is created on first use).
+     *
+     * @param index             Warrior's index in the war.
+     * @param name	            Warrior's name.
+     * @param codeSize          Warrior's code size.
+     * @param loadAddress       Warrior's load address in the core (initial CS:IP).
+     * @param initialStack      Warrior's private stack in the core (initial SS:SP).
+     * @param groupSharedMemory Warrior group's shared memroy address (initial ES).
+     * @param groupSharedMemorySize Warrior group's shared memory size. 
+     * @return the warrior.
+     */
+    public Warrior getWarrior(
+        int index,
+        String name,
+        int codeSize,
+        RealModeAddress loadAddress,
+        RealModeAddress initialStack,
+        RealModeAddress groupSharedMemory,
+        short groupSharedMemorySize,
+        WarriorType type) {
+
+        Warrior warrior = m_warriors[index];
+        if (warrior == null) {
+            warrior = new Warrior(name, codeSize, m_core, loadAddress,
+                initialStack, groupSharedMemory, groupSharedMemorySize, type);
+            m_warriors[index] = warrior;
+        } else {
+            warrior.reset(name, codeSize, loadAddress, initialStack,
+                groupSharedMemory, groupSharedMemorySize, type);
+        }
+        return warrior;
+    }
+
+    /** The core memory */
+    private final RealModeMemoryImpl m_core;
+    /** Warriors of the last war, by index */
+    private final Warrior[] m_warriors;
+    /** Copies of the core (or null if not used yet) */
+    private byte[][] m_coreBuffers;
+}
@@ -0,0 +1,82 @@
+package il.co.codeguru.corewars8086.war;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random number generator of a single war.
+ *
+ * A war runs on a single thread, so unlike java.util.Random this generator
+ * is not thread-safe, which saves an atomic update for every number.
+ *
+ * By default, the generator reproduces the sequences of java.util.Random
+ * (with the same seed), so that wars (e.g. of official competitions) play
+ * out exactly as in previous versions. Otherwise, it uses the faster
+ * SplittableRandom, whose sequences are different.
+ */
+final class WarRandom {
+
+    /**
+     * Constructor, of a randomly seeded generator.
+     * @param fast  Whether to use SplittableRandom rather than reproduce
+     *              java.util.Random.
+     */
+    WarRandom(boolean fast) {
+        m_fast = fast;
+        setSeed(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Restarts the generator's sequence.
+     * @param seed  The new seed.
+     */
+    void setSeed(long seed) {
+        if (m_fast) {
+            m_splittable = new SplittableRandom(seed);
+        } else {
+            m_seed = (seed ^ MULTIPLIER) & MASK;
+        }
+    }
+
+    /**
+     * @param bound  Upper bound (exclusive), must be positive.
+     * @return a random value between 0 and bound-1, as java.util.Random's
+     *         nextInt() returns (unless fast).
+     */
+    int nextInt(int bound) {
+        if (m_fast) {
+            return m_splittable.nextInt(bound);
+        }
+
+        int value = next31();
+        int mask = bound - 1;
+        if ((bound & mask) == 0) {
+            // bound is a power of 2, use the high bits
+            return (int)((bound * (long)value) >> 31);
+        }
+        // reject the values of the last partial range of bound values
+        for (int u = value; u - (value = u % bound) + mask < 0; u = next31()) {
+        }
+        return value;
+    }
+
+    /**
+     * @return the next 31 random bits (java.util.Random's next(31)).
+     */
+    private int next31() {
+        m_seed = (m_seed * MULTIPLIER + ADDEND) & MASK;
+        return (int)(m_seed >>> (48 - 31));
+    }
+
+    /** Parameters of java.util.Random's linear congruential generator */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /** Whether or not SplittableRandom is used */
+    private final boolean m_fast;
+    /** State of the java.util.Random sequence (if not fast) */
+    private long m_seed;
+    /** The SplittableRandom used (if fast) */
+    private SplittableRandom m_splittable;
+}
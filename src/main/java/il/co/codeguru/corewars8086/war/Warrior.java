@@ -38,12 +38,41 @@ public class Warrior {
         short groupSharedMemorySize,
         WarriorType type) {
 
+        m_state = new CpuState();
+        m_memory = new RestrictedAccessRealModeMemory(core,
+            new RealModeMemoryRegion[0], new RealModeMemoryRegion[0],
+            new RealModeMemoryRegion[0]);
+        m_cpu = new Cpu(m_state, m_memory);
+
+        reset(name, codeSize, loadAddress, initialStack, groupSharedMemory,
+            groupSharedMemorySize, type);
+    }
+
+    /**
+     * Reinitializes the warrior (e.g. for another war in the same core),
+     * reusing its CPU and memory objects.
+     * 
+     * @param name	            Warrior's name.
+     * @param codeSize          Warrior's code size.
+     * @param loadAddress       Warrior's load address in the core (initial CS:IP).
+     * @param initialStack      Warrior's private stack in the core (initial SS:SP).
+     * @param groupSharedMemory Warrior group's shared memroy address (initial ES).
+     * @param groupSharedMemorySize Warrior group's shared memory size. 
+     */
+    public void reset(
+        String name,
+        int codeSize,
+        RealModeAddress loadAddress,
+        RealModeAddress initialStack,
+        RealModeAddress groupSharedMemory,
+        short groupSharedMemorySize,
+        WarriorType type) {
+
         this.type = type;
         m_name = name;
         m_codeSize = codeSize;
         m_loadAddress = loadAddress;
 
-        m_state = new CpuState();
         initializeCpuState(loadAddress, initialStack, groupSharedMemory);
 
         // initialize read-access regions
@@ -78,10 +107,8 @@ public class Warrior {
                 new RealModeMemoryRegion(lowestCoreAddress, highestCoreAddress)
             };
 
-        m_memory = new RestrictedAccessRealModeMemory(
-            core, readAccessRegions, writeAccessRegions, executeAccessRegions);
-
-        m_cpu = new Cpu(m_state, m_memory);
+        m_memory.setAccessRegions(
+            readAccessRegions, writeAccessRegions, executeAccessRegions);
 
         m_isAlive = true;		
     }
@@ -198,11 +225,11 @@ public class Warrior {
     }
 
     /** Warrior's name */
-    private final String m_name;	
+    private String m_name;	
     /** Warrior's initial code size */	
-    private final int m_codeSize;
+    private int m_codeSize;
     /** Warrior's initial load address */	
-    private final RealModeAddress m_loadAddress;
+    private RealModeAddress m_loadAddress;
     /** Current state of registers & flags */	
     private CpuState m_state;
     /** Applies restricted access logic on top of the actual core memory */
@@ -212,5 +239,5 @@ public class Warrior {
     /** Whether or not the warrior is still alive */
     private boolean m_isAlive;
 
-    private final WarriorType type;
-}
\ No newline at end of file
+    private WarriorType type;
+}
\ No newline at end of file
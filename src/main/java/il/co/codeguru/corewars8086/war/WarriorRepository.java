@@ -1,7 +1,6 @@
 package il.co.codeguru.corewars8086.war;
 
 import il.co.codeguru.corewars8086.cli.Options;
-import il.co.codeguru.corewars8086.utils.EventMulticaster;
 
 import java.io.*;
 import java.util.*;
@@ -20,8 +19,7 @@ public class WarriorRepository {
     private WarriorGroup zombieGroup;
     private Map<String, Integer> warriorNameToGroup;
 
-    private EventMulticaster scoreEventsCaster;
-    private ScoreEventListener scoreListener;
+    private ScoreEventMulticaster scoreListener;
     
     private final Options options;
 
@@ -35,12 +33,11 @@ public class WarriorRepository {
         if (shouldReadWarriorsFile)
             readWarriorFiles();
 
-        scoreEventsCaster = new EventMulticaster(ScoreEventListener.class);
-        scoreListener = (ScoreEventListener) scoreEventsCaster.getProxy();
+        scoreListener = new ScoreEventMulticaster();
     }
 
     public void addScoreEventListener(ScoreEventListener lis) {
-        scoreEventsCaster.add(lis);
+        scoreListener.add(lis);
     }
 
     public void addScore(String name, float value) {
@@ -0,0 +1,81 @@
+package il.co.codeguru.corewars8086.memory;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class RealModeMemoryImplTest {
+
+    /** A window like the war's arena, which random writes may miss */
+    private static final int BASE = 0x10000;
+    private static final int SIZE = 0x10000;
+
+    @Test
+    public void hashFollowsRandomWrites() {
+        checkHashFollowsRandomWrites(new RealModeMemoryImpl(BASE, SIZE));
+    }
+
+    @Test
+    public void directHashFollowsRandomWrites() {
+        checkHashFollowsRandomWrites(new RealModeMemoryImpl(
+            BASE, ByteBufferMemoryStorage.allocateDirect(SIZE)));
+    }
+
+    @Test
+    public void hashDependsOnContents() {
+        RealModeMemoryImpl memory = new RealModeMemoryImpl(BASE, SIZE);
+        memory.setHashing(true);
+        long emptyHash = memory.getHash();
+
+        memory.writeByte((short) 0x1000, (short) 5, (byte) 1);
+        assertNotEquals(emptyHash, memory.getHash());
+        memory.writeByte((short) 0x1000, (short) 5, (byte) 0);
+        assertEquals(emptyHash, memory.getHash());
+    }
+
+    /**
+     * Makes random writes, some of which wrap around the end of their segment
+     * or fall outside the window, and checks that the maintained hash is
+     * always that of the whole window computed from scratch.
+     */
+    private static void checkHashFollowsRandomWrites(RealModeMemoryImpl memory) {
+        Random random = new Random(42);
+        byte[] window = new byte[memory.getWindowSize()];
+        memory.setHashing(true);
+
+        for (int i = 0; i < 2000; ++i) {
+            int linearAddress = BASE - 0x100 + random.nextInt(SIZE + 0x200);
+            short segment = (short) ((linearAddress >>> 4) - random.nextInt(0x1000));
+            short offset = (short) (linearAddress - ((segment & 0xFFFF) << 4));
+            if (random.nextInt(10) == 0) {
+                offset = (short) 0xFFFF;
+            }
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    memory.writeByte(segment, offset, (byte) random.nextInt(4));
+                    break;
+                case 1:
+                    memory.writeWord(segment, offset, (short) random.nextInt(4));
+                    break;
+                default:
+                    byte[] block = new byte[1 + random.nextInt(300)];
+                    for (int j = 0; j < block.length; ++j) {
+                        block[j] = (byte) random.nextInt(4);
+                    }
+                    memory.writeBlock(segment, offset, block, block.length);
+                    break;
+            }
+
+            if (i % 50 == 0) {
+                memory.copyWindow(window);
+                assertEquals(memory.getHash(window), memory.getHash());
+            }
+        }
+        memory.copyWindow(window);
+        assertEquals(memory.getHash(window), memory.getHash());
+    }
+}
@@ -0,0 +1,64 @@
+package il.co.codeguru.corewars8086.war;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompetitionIteratorTest {
+
+    @Test
+    public void everyCombinationIsVisitedOncePerCycle() {
+        for (int numItems = 1; numItems <= 8; ++numItems) {
+            for (int groupSize = 1; groupSize <= Math.min(numItems, 4); ++groupSize) {
+                CompetitionIterator iterator = new CompetitionIterator(numItems, groupSize);
+                long numCombinations = iterator.getNumberOfItems();
+                assertEquals(binomial(numItems, groupSize), numCombinations);
+
+                Set<String> combinations = new HashSet<>();
+                for (long war = 0; war < numCombinations; ++war) {
+                    int[] groups = iterator.get(war);
+                    assertEquals(groupSize, groups.length);
+                    for (int i = 0; i < groupSize; ++i) {
+                        assertTrue((groups[i] >= 0) && (groups[i] < numItems));
+                        assertTrue((i == 0) || (groups[i - 1] < groups[i]));
+                    }
+                    assertTrue("combination visited twice: " + Arrays.toString(groups),
+                        combinations.add(Arrays.toString(groups)));
+                }
+                assertEquals(numCombinations, combinations.size());
+            }
+        }
+    }
+
+    @Test
+    public void nextStartsOverAfterEveryCombination() {
+        CompetitionIterator iterator = new CompetitionIterator(6, 3);
+        long numCombinations = iterator.getNumberOfItems();
+        for (long war = 0; war < 3 * numCombinations; ++war) {
+            assertArrayEquals(iterator.get(war % numCombinations), iterator.next());
+        }
+    }
+
+    @Test
+    public void allGroupsFightWhenThereAreFewerThanGroupSize() {
+        CompetitionIterator iterator = new CompetitionIterator(3, 4);
+        assertEquals(1, iterator.getNumberOfItems());
+        for (long war = 0; war < 3; ++war) {
+            assertArrayEquals(new int[] {0, 1, 2}, iterator.next());
+        }
+    }
+
+    private static long binomial(int n, int k) {
+        long result = 1;
+        for (int i = 0; i < k; ++i) {
+            result = result * (n - i) / (i + 1);
+        }
+        return result;
+    }
+}
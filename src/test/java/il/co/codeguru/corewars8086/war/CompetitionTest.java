@@ -0,0 +1,143 @@
+package il.co.codeguru.corewars8086.war;
+
+import il.co.codeguru.corewars8086.cli.Options;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompetitionTest {
+
+    /** JMP $ */
+    private static final byte[] LOOP = {(byte) 0xEB, (byte) 0xFE};
+
+    /** INT 3, which kills the warrior */
+    private static final byte[] DIE = {(byte) 0xCC};
+
+    @Test
+    public void parallelScoresEqualSequentialScores() throws Exception {
+        // every war scores 1/3 for each warrior, which floats cannot add up
+        // exactly, so summing the same scores in another order changes the
+        // totals
+        File warriorsDir = createWarriors("a", LOOP, "b", LOOP, "c", LOOP, "d", LOOP, "e", LOOP);
+        Competition sequential = createCompetition(warriorsDir, 0);
+        sequential.runCompetition(40, 3, false);
+        Competition parallel = createCompetition(warriorsDir, 0);
+        parallel.runCompetitionInParallel(40, 3, 4);
+        assertEquals(getScores(sequential), getScores(parallel));
+    }
+
+    @Test
+    public void parallelCompetitionStopsAfterSameWarAsSequential() throws Exception {
+        // x survives every war, y loses a warrior and z dies, so the ranking
+        // settles long before the 300 wars
+        File warriorsDir = createWarriors(
+            "x1", LOOP, "x2", LOOP, "y1", LOOP, "y2", DIE, "z1", DIE, "z2", DIE);
+        Competition sequential = createCompetition(warriorsDir, 0.99);
+        SettledListener sequentialListener = new SettledListener();
+        sequential.addCompetitionEventListener(sequentialListener);
+        sequential.runCompetition(100, 2, false);
+        Competition parallel = createCompetition(warriorsDir, 0.99);
+        SettledListener parallelListener = new SettledListener();
+        parallel.addCompetitionEventListener(parallelListener);
+        parallel.runCompetitionInParallel(100, 2, 4);
+
+        assertTrue(sequentialListener.settledWars > 0);
+        assertTrue(sequentialListener.settledWars < sequential.getTotalNumberOfWars());
+        assertEquals(sequentialListener.settledWars, parallelListener.settledWars);
+        assertEquals(getScores(sequential), getScores(parallel));
+    }
+
+    private static Competition createCompetition(File warriorsDir, double earlyStopConfidence) throws IOException {
+        Options options = new Options();
+        options.warriorsDir = warriorsDir.getPath();
+        options.zombiesDir = new File(warriorsDir, "no zombies").getPath();
+        options.outputFile = new File(warriorsDir, "scores.csv").getPath();
+        options.coreFile = "";
+        options.detectStalemates = true;
+        options.earlyStopConfidence = earlyStopConfidence;
+        Competition competition = new Competition(options);
+        competition.setHeadless(true);
+        competition.setSeed(1);
+        return competition;
+    }
+
+    /**
+     * @param warriors  Name and code of every warrior.
+     * @return a temporary directory holding the warriors' files.
+     */
+    private static File createWarriors(Object... warriors) throws IOException {
+        File dir = Files.createTempDirectory("warriors").toFile();
+        dir.deleteOnExit();
+        for (int i = 0; i < warriors.length; i += 2) {
+            File file = new File(dir, (String) warriors[i]);
+            file.deleteOnExit();
+            Files.write(file.toPath(), (byte[]) warriors[i + 1]);
+        }
+        new File(dir, "scores.csv").deleteOnExit();
+        return dir;
+    }
+
+    /**
+     * @return the score of every group, followed by the score of every warrior.
+     */
+    private static List<Float> getScores(Competition competition) {
+        List<Float> scores = new ArrayList<>();
+        List<WarriorGroup> groups = competition.getWarriorRepository().getWarriorGroups();
+        for (WarriorGroup group : groups) {
+            scores.add(group.getGroupScore());
+        }
+        for (WarriorGroup group : groups) {
+            scores.addAll(group.getScores());
+        }
+        return scores;
+    }
+
+    /** Records when the ranking of a competition is settled */
+    private static class SettledListener implements CompetitionEventListener {
+        int settledWars;
+
+        @Override
+        public void onRankingSettled(int numWars, int totalWars) {
+            settledWars = numWars;
+        }
+
+        @Override
+        public void onWarStart(long seed) {
+        }
+
+        @Override
+        public void onWarEnd(int reason, String winners) {
+        }
+
+        @Override
+        public void onRound(int round) {
+        }
+
+        @Override
+        public void onWarriorBirth(String warriorName) {
+        }
+
+        @Override
+        public void onWarriorDeath(String warriorName, String reason) {
+        }
+
+        @Override
+        public void onCompetitionStart() {
+        }
+
+        @Override
+        public void onCompetitionEnd() {
+        }
+
+        @Override
+        public void onEndRound() {
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package il.co.codeguru.corewars8086.war;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RankingStatisticsTest {
+
+    /** RankingStatistics.MIN_WARS_PER_GROUP */
+    private static final int MIN_WARS = 30;
+
+    @Test
+    public void separatedGroupsSettleAfterMinimumWars() {
+        List<WarriorGroup> groups = createGroups(3);
+        RankingStatistics statistics = new RankingStatistics(groups, 0.99, 0);
+        addWars(statistics, groups, MIN_WARS - 1, 0.5, 3, 2, 1);
+        assertFalse(statistics.isSettled());
+        addWars(statistics, groups, 1, 0.5, 3, 2, 1);
+        assertTrue(statistics.isSettled());
+    }
+
+    @Test
+    public void closeGroupsDoNotSettle() {
+        List<WarriorGroup> groups = createGroups(3);
+        RankingStatistics statistics = new RankingStatistics(groups, 0.99, 0);
+        // z = 0.05 / sqrt(2 / 199) = 0.5 between the top two groups
+        addWars(statistics, groups, 200, 1, 2, 1.95, 0);
+        assertFalse(statistics.isSettled());
+    }
+
+    @Test
+    public void tiedGroupsDoNotSettle() {
+        List<WarriorGroup> groups = createGroups(2);
+        RankingStatistics statistics = new RankingStatistics(groups, 0.99, 0);
+        addWars(statistics, groups, 100, 0, 1, 1);
+        assertFalse(statistics.isSettled());
+    }
+
+    @Test
+    public void constantScoresSettle() {
+        List<WarriorGroup> groups = createGroups(2);
+        RankingStatistics statistics = new RankingStatistics(groups, 0.99, 0);
+        addWars(statistics, groups, MIN_WARS, 0, 1, 0.5);
+        assertTrue(statistics.isSettled());
+    }
+
+    @Test
+    public void onlyTopGroupsMustBeSettled() {
+        List<WarriorGroup> groups = createGroups(4);
+        RankingStatistics all = new RankingStatistics(groups, 0.99, 0);
+        RankingStatistics top2 = new RankingStatistics(groups, 0.99, 2);
+        // the bottom two groups are tied
+        addWars(all, groups, MIN_WARS, 0.5, 3, 2, 1, 1);
+        addWars(top2, groups, MIN_WARS, 0.5, 3, 2, 1, 1);
+        assertFalse(all.isSettled());
+        assertTrue(top2.isSettled());
+    }
+
+    @Test
+    public void confidenceIsCorrectedForTheNumberOfPairs() {
+        // every adjacent pair is separated by z = 2.0, which passes a single
+        // test at 95% (z >= 1.645) but not four (z >= 2.241)
+        double step = 2.0 * Math.sqrt(2.0 / (MIN_WARS - 1));
+        double[] means = {4 * step, 3 * step, 2 * step, step, 0};
+        List<WarriorGroup> groups = createGroups(means.length);
+        RankingStatistics onePair = new RankingStatistics(groups, 0.95, 1);
+        RankingStatistics allPairs = new RankingStatistics(groups, 0.95, 0);
+        addWars(onePair, groups, MIN_WARS, 1, means);
+        addWars(allPairs, groups, MIN_WARS, 1, means);
+        assertTrue(onePair.isSettled());
+        assertFalse(allPairs.isSettled());
+    }
+
+    @Test
+    public void singleGroupIsAlwaysSettled() {
+        List<WarriorGroup> groups = createGroups(1);
+        assertTrue(new RankingStatistics(groups, 0.99, 0).isSettled());
+    }
+
+    /**
+     * @return groups of a single warrior each, named "g0", "g1"...
+     */
+    private static List<WarriorGroup> createGroups(int numGroups) {
+        List<WarriorGroup> groups = new ArrayList<>();
+        for (int i = 0; i < numGroups; ++i) {
+            WarriorGroup group = new WarriorGroup("g" + i);
+            group.addWarrior(new WarriorData("g" + i, new byte[0], WarriorType.SURVIVOR));
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Adds wars in which all the groups fight, and every group scores its
+     * mean plus or minus the deviation in alternate wars.
+     */
+    private static void addWars(RankingStatistics statistics, List<WarriorGroup> groups,
+        int numWars, double deviation, double... means) {
+        WarriorGroup[] warriorGroups = groups.toArray(new WarriorGroup[0]);
+        for (int war = 0; war < numWars; ++war) {
+            double noise = (war % 2 == 0) ? deviation : -deviation;
+            ScoreAccumulator scores = new ScoreAccumulator();
+            for (int i = 0; i < means.length; ++i) {
+                scores.addScore("g" + i, (float) (means[i] + noise));
+            }
+            statistics.addWar(warriorGroups, scores);
+        }
+    }
+}
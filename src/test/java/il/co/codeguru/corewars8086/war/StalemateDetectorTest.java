@@ -0,0 +1,61 @@
+package il.co.codeguru.corewars8086.war;
+
+import il.co.codeguru.corewars8086.cli.Options;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StalemateDetectorTest {
+
+    /** JMP $ */
+    private static final byte[] LOOP = {(byte) 0xEB, (byte) 0xFE};
+
+    /** NOP; JMP $-1 */
+    private static final byte[] NOP_LOOP = {(byte) 0x90, (byte) 0xEB, (byte) 0xFD};
+
+    @Test
+    public void loopingWarriorsAreInStalemate() throws Exception {
+        War war = createWar(true, LOOP, NOP_LOOP);
+        int round = war.runRounds(0, Competition.MAX_ROUND);
+        assertTrue(war.isStalemate());
+        assertTrue(war.isOver());
+        assertTrue(round < Competition.MAX_ROUND);
+        assertEquals(2, war.getNumRemainingWarriors());
+    }
+
+    @Test
+    public void loopingWarriorsRunToMaxRoundWithoutDetection() throws Exception {
+        War war = createWar(false, LOOP, NOP_LOOP);
+        assertEquals(Competition.MAX_ROUND, war.runRounds(0, Competition.MAX_ROUND));
+        assertFalse(war.isStalemate());
+        assertEquals(2, war.getNumRemainingWarriors());
+    }
+
+    @Test
+    public void warWithoutStalemateIsNotCutShort() throws Exception {
+        // INC DI; JMP $-1 runs an opcode per round, so DI only wraps around
+        // after 131072 rounds and the registers never repeat before that
+        byte[] counter = {(byte) 0x47, (byte) 0xEB, (byte) 0xFD};
+        War war = createWar(true, counter, counter);
+        int round = war.runRounds(0, 100000);
+        assertFalse(war.isStalemate());
+        assertEquals(100000, round);
+    }
+
+    private static War createWar(boolean detectStalemates, byte[]... codes) throws Exception {
+        Options options = new Options();
+        options.detectStalemates = detectStalemates;
+        options.coreFile = "";
+        War war = new War(null, new CompetitionEventMulticaster(), false, options);
+        war.setSeed(1);
+        WarriorGroup[] groups = new WarriorGroup[codes.length];
+        for (int i = 0; i < codes.length; ++i) {
+            groups[i] = new WarriorGroup("w" + i);
+            groups[i].addWarrior(new WarriorData("w" + i, codes[i], WarriorType.SURVIVOR));
+        }
+        war.loadWarriorGroups(groups);
+        return war;
+    }
+}